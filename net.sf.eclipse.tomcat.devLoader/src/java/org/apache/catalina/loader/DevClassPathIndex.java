@@ -0,0 +1,223 @@
+package org.apache.catalina.loader;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Names of the classes and resources of the web classpath entries, so a lookup
+ * of a name which is in none of them is answered without probing each entry.
+ *
+ * The index only tells when a name is surely absent. Jars do not change while the
+ * context runs, so a name missing from a jar is missing for good. Directories are
+ * compiled into while the context runs : a name missing from the index is only surely
+ * absent if its package is in no directory. New packages are added by a WatchService,
+ * a package the watcher did not report yet is looked for in the directories.
+ * Deleted files stay in the index, the lookup then goes on as without index.
+ */
+public class DevClassPathIndex implements Closeable {
+
+	/** names of the files of all entries, and their directories ending with '/' */
+	private final Set<String> names = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	/** packages found in directory entries, as "a/b/", "" for the root */
+	private final Set<String> directoryPackages = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	/** directory entries */
+	private final List<File> directories = new CopyOnWriteArrayList<File>();
+	/** watched directories, by key, with their name relative to their entry */
+	private final Map<WatchKey, String> watchedPackages = new ConcurrentHashMap<WatchKey, String>();
+	private final Map<WatchKey, Path> watchedDirectories = new ConcurrentHashMap<WatchKey, Path>();
+	private WatchService watcher;
+	/** true once a change could not be read, lookups are not answered any more */
+	private volatile boolean stale;
+
+	/**
+	 * Start watching directories added from now on, for new packages
+	 */
+	public void watch() throws IOException {
+		watcher = FileSystems.getDefault().newWatchService();
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				processEvents();
+			}
+		}, "DevLoader index");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	public void addJar(File jar) throws IOException {
+		ZipFile zipFile = new ZipFile(jar);
+		try {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				addName(entries.nextElement().getName(), false);
+			}
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	public void addDirectory(File dir) throws IOException {
+		directories.add(dir);
+		directoryPackages.add("");
+		addTree(dir.toPath(), "");
+	}
+
+	/**
+	 * @param name name of a class file or resource, as "a/b/C.class"
+	 * @return true if name is surely in no entry, false if it may be in one
+	 */
+	public boolean isAbsent(String name) {
+		if (stale || names.contains(name)) {
+			return false;
+		}
+		int slash = name.lastIndexOf('/', name.length() - 2);
+		String packageName = name.substring(0, slash + 1);
+		if (directoryPackages.contains(packageName)) {
+			return false;
+		}
+		// created since the last event read by the watcher
+		for (File dir : directories) {
+			if (new File(dir, packageName).isDirectory()) {
+				addName(packageName, true);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return number of names in the index
+	 */
+	public int size() {
+		return names.size();
+	}
+
+	public void close() throws IOException {
+		if (watcher != null) {
+			watcher.close();
+		}
+	}
+
+	private void addName(String name, boolean inDirectory) {
+		if (!names.add(name) && !inDirectory) {
+			return;
+		}
+		if (inDirectory && name.endsWith("/")) {
+			directoryPackages.add(name);
+		}
+		// and its packages, jars do not always have directory entries
+		for (int slash = name.lastIndexOf('/', name.length() - 2); slash != -1; slash = name.lastIndexOf('/', slash - 1)) {
+			String dirName = name.substring(0, slash + 1);
+			boolean added = names.add(dirName);
+			if (inDirectory) {
+				added = directoryPackages.add(dirName) || added;
+			}
+			if (!added) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Add the content of dir, known as prefix in its entry, and watch it
+	 */
+	private void addTree(final Path dir, final String prefix) throws IOException {
+		Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path subDir, BasicFileAttributes attrs) throws IOException {
+				String name = getName(subDir);
+				if (name.length() > 0) {
+					addName(name, true);
+				}
+				if (watcher != null) {
+					// registered before its content is read, nothing created meanwhile is missed
+					WatchKey key = subDir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE);
+					watchedPackages.put(key, name);
+					watchedDirectories.put(key, subDir);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				addName(getName(file), true);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) {
+				return FileVisitResult.CONTINUE;
+			}
+
+			private String getName(Path path) {
+				String name = prefix + dir.relativize(path).toString().replace('\\', '/');
+				if (name.length() > 0 && Files.isDirectory(path) && !name.endsWith("/")) {
+					name += "/";
+				}
+				return name;
+			}
+		});
+	}
+
+	private void processEvents() {
+		try {
+			while (true) {
+				WatchKey key = watcher.take();
+				String prefix = watchedPackages.get(key);
+				Path dir = watchedDirectories.get(key);
+				if (prefix != null) {
+					try {
+						processEvents(key, dir, prefix);
+					} catch (IOException e) {
+						stale = true;
+						System.err.println("[DevLoader] Error: index of class path disabled, " + dir + " could not be read: " + e);
+					}
+				}
+				if (!key.reset()) {
+					watchedPackages.remove(key);
+					watchedDirectories.remove(key);
+				}
+			}
+		} catch (ClosedWatchServiceException e) {
+			// index closed
+		} catch (InterruptedException e) {
+			// stopped
+		}
+	}
+
+	private void processEvents(WatchKey key, Path dir, String prefix) throws IOException {
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+				// events were lost, read the directory again
+				addTree(dir, prefix);
+			} else {
+				Path child = dir.resolve((Path) event.context());
+				if (Files.isDirectory(child)) {
+					addTree(child, prefix + child.getFileName() + "/");
+				} else {
+					addName(prefix + child.getFileName(), true);
+				}
+			}
+		}
+	}
+}
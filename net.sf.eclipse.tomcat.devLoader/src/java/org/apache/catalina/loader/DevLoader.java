@@ -1,17 +1,27 @@
 package org.apache.catalina.loader;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileReader;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.LineNumberReader;
+import java.io.Reader;
 import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.StringTokenizer;
 
+import javax.management.ObjectName;
 import javax.servlet.ServletContext;
 
 import org.apache.catalina.Globals;
@@ -28,6 +38,14 @@ public class DevLoader extends WebappLoader {
 
 	private String webClassPathFile = ".#webclasspath";
 	private String tomcatPluginFile = ".tomcatplugin";
+	private static final String WEBCLASSPATH_2_HEADER = "# webclasspath 2 ";
+	private boolean useIndex = true;
+	private ObjectName statisticsName;
+	/** .#webclasspath read at start, and its modification time when it was last read */
+	private File webClassPath;
+	private long webClassPathModified;
+	/** entries of .#webclasspath added to the class loader */
+	private final Set<String> addedEntries = new HashSet<String>();
 
 	public DevLoader() {
 		super();
@@ -36,13 +54,27 @@ public class DevLoader extends WebappLoader {
 		super(parent);
 	}
 
+	/**
+	 * @return true if lookups of names which are in no web classpath entry
+	 * are answered by an index, without probing each entry
+	 */
+	public boolean getUseIndex() {
+		return useIndex;
+	}
+
+	public void setUseIndex(boolean useIndex) {
+		this.useIndex = useIndex;
+	}
+
 	/**
 	 * @see org.apache.catalina.Lifecycle#start()
 	 */
 	public void startInternal() throws LifecycleException {
 		// e.siffert: start() is final in LifecycleBase
 		log("Starting DevLoader modified by e.siffert (August 04 2014) for Tomcat 8: " + ServerInfo.getServerInfo());
-		//setLoaderClass(DevWebappClassLoader.class.getName());
+		if (getLoaderClass().equals(ParallelWebappClassLoader.class.getName())) {
+			setLoaderClass(DevWebappClassLoader.class.getName());
+		}
 		super.startInternal();
 
 		ClassLoader cl = super.getClassLoader();
@@ -52,29 +84,34 @@ public class DevLoader extends WebappLoader {
 	    }
 	    WebappClassLoaderBase devCl = (WebappClassLoaderBase) cl;
 
+		long start = System.currentTimeMillis();
+		DevClassPathIndex index = null;
+		if (useIndex && devCl instanceof DevWebappClassLoader) {
+			index = new DevClassPathIndex();
+			try {
+				index.watch();
+			} catch (IOException e) {
+				logError("index of class path disabled, directories can not be watched: " + e);
+				index = null;
+			}
+		}
+
+		addedEntries.clear();
+		webClassPath = null;
 		List webClassPathEntries = readWebClassPathEntries();
 		StringBuilder classpath   = new StringBuilder();
 		for (Iterator it = webClassPathEntries.iterator(); it.hasNext();) {
 			String entry = (String) it.next();
-			File f = new File(entry);
-			if (f.exists()) {
-				if (f.isDirectory() && !entry.endsWith("/")) {
-					f = new File(entry + "/");
-				}
-				try {
-					URL url = f.toURL();
-					//devCl.addUrl(url);
-					// removed in Tomcat8
-					//	devCl.addRepository(url.toString());
-					devCl.addURL(url);
-					classpath.append(f.toString()).append(File.pathSeparatorChar);
-					log("added to classpath: " + url.toString());
-				} catch (MalformedURLException e) {
-					logError(entry + " invalid (MalformedURL)");
-				}
-			} else {
-				logError(entry + " does not exist !");
-			}
+			index = addToIndex(index, new File(entry), entry.endsWith("/"));
+			addEntry(devCl, entry, classpath);
+		}
+		if (index != null) {
+			((DevWebappClassLoader) devCl).setIndex(index);
+			log("class path indexed: " + index.size() + " names in " + (System.currentTimeMillis() - start) + " ms");
+		}
+		if (devCl instanceof DevWebappClassLoader) {
+			statisticsName = register(((DevWebappClassLoader) devCl).getStatistics(),
+					getObjectNameKeyProperties().replaceFirst("^type=Loader", "type=DevLoaderStatistics"));
 		}
 
 		String cp = (String)getServletContext().getAttribute(Globals.CLASS_PATH_ATTR);
@@ -92,6 +129,147 @@ public class DevLoader extends WebappLoader {
 		log("class path for our application class loader = " + classpath);
 	}
 
+	/**
+	 * Add the entries appended to .#webclasspath since it was read, checked
+	 * every backgroundProcessorDelay seconds of the context
+	 */
+	@Override
+	public void backgroundProcess() {
+		super.backgroundProcess();
+		if (getState().isAvailable() && webClassPath != null
+				&& webClassPath.lastModified() != webClassPathModified) {
+			reloadWebClassPath();
+		}
+	}
+
+	/**
+	 * Read .#webclasspath again and add its new entries to the running class loader,
+	 * without reloading the context. Removed entries stay loaded until the next reload.
+	 */
+	public synchronized void reloadWebClassPath() {
+		if (webClassPath == null || !getState().isAvailable()) {
+			return;
+		}
+		ClassLoader cl = getClassLoader();
+		if (!(cl instanceof WebappClassLoaderBase)) {
+			return;
+		}
+		WebappClassLoaderBase devCl = (WebappClassLoaderBase) cl;
+		List entries = loadWebClassPathFile(webClassPath.getParentFile());
+		if (entries == null) {
+			return;
+		}
+
+		DevClassPathIndex index = devCl instanceof DevWebappClassLoader ? ((DevWebappClassLoader) devCl).getIndex() : null;
+		StringBuilder classpath = new StringBuilder();
+		Set<String> listed = new HashSet<String>();
+		for (Iterator it = entries.iterator(); it.hasNext();) {
+			String entry = (String) it.next();
+			listed.add(entry);
+			if (addedEntries.contains(entry)) {
+				continue;
+			}
+			// indexed before the class loader looks into it, else the index would answer
+			// its names are absent meanwhile
+			index = addToIndex(index, new File(entry), entry.endsWith("/"));
+			if (index == null && devCl instanceof DevWebappClassLoader) {
+				((DevWebappClassLoader) devCl).setIndex(null);
+			}
+			addEntry(devCl, entry, classpath);
+		}
+		for (String entry : addedEntries) {
+			if (!listed.contains(entry)) {
+				log(entry + " removed from " + webClassPathFile + ", still loaded until the context is reloaded");
+			}
+		}
+
+		if (classpath.length() > 0) {
+			String cp = (String) getServletContext().getAttribute(Globals.CLASS_PATH_ATTR);
+			if (cp != null) {
+				classpath.insert(0, cp.endsWith(File.pathSeparator) ? cp : cp + File.pathSeparatorChar);
+			}
+			getServletContext().setAttribute(Globals.CLASS_PATH_ATTR, classpath.toString());
+			log("class path for our application class loader = " + classpath);
+		}
+	}
+
+	@Override
+	protected void stopInternal() throws LifecycleException {
+		if (statisticsName != null) {
+			unregister(statisticsName);
+			statisticsName = null;
+		}
+		super.stopInternal();
+	}
+
+	/**
+	 * Add entry to the class loader, and append it to classpath. The file system
+	 * is not looked at, entry is a directory if it ends with '/'
+	 */
+	private void addEntry(WebappClassLoaderBase devCl, String entry, StringBuilder classpath) {
+		File f = new File(entry);
+		try {
+			URL url = toURL(f, entry.endsWith("/"));
+			//devCl.addUrl(url);
+			// removed in Tomcat8
+			//	devCl.addRepository(url.toString());
+			devCl.addURL(url);
+			addedEntries.add(entry);
+			classpath.append(f.toString()).append(File.pathSeparatorChar);
+			log("added to classpath: " + url.toString());
+		} catch (MalformedURLException e) {
+			logError(entry + " invalid (MalformedURL)");
+		}
+	}
+
+	/**
+	 * Same URL as File.toURI().toURL(), without asking the file system whether f is a directory
+	 */
+	private static URL toURL(File f, boolean directory) throws MalformedURLException {
+		String path = f.getAbsolutePath().replace(File.separatorChar, '/');
+		if (!path.startsWith("/")) {
+			path = "/" + path;
+		}
+		if (directory && !path.endsWith("/")) {
+			path += "/";
+		}
+		try {
+			return new URI("file", null, path, null).toURL();
+		} catch (URISyntaxException e) {
+			throw new MalformedURLException(e.getMessage());
+		}
+	}
+
+	/**
+	 * @return index, null if entry could not be indexed
+	 */
+	private DevClassPathIndex addToIndex(DevClassPathIndex index, File entry, boolean directory) {
+		if (index == null) {
+			return null;
+		}
+		try {
+			if (directory) {
+				if (!entry.isDirectory()) {
+					// could not be watched, classes compiled into it later would be missed
+					throw new FileNotFoundException("directory does not exist yet");
+				}
+				index.addDirectory(entry);
+			} else if (entry.exists()) {
+				index.addJar(entry);
+			} else {
+				logError(entry + " does not exist !");
+			}
+			return index;
+		} catch (IOException e) {
+			logError("index of class path disabled, " + entry + " can not be read: " + e);
+			try {
+				index.close();
+			} catch (IOException ignored) {
+			}
+			return null;
+		}
+	}
+
 	protected void log(String msg) {
 		System.out.println("[DevLoader] " + msg);
 	}
@@ -141,17 +319,38 @@ public class DevLoader extends WebappLoader {
 	protected List loadWebClassPathFile(File prjDir) {
 		File cpFile = new File(prjDir, webClassPathFile);
 		if (cpFile.exists()) {
-			FileReader reader = null;
+			// taken before reading, a change made meanwhile is read on the next check
+			webClassPath = cpFile;
+			webClassPathModified = cpFile.lastModified();
+			Reader reader = null;
 			try {
 				List rc = new ArrayList();
-				reader = new FileReader(cpFile);
+				byte[] content = Files.readAllBytes(cpFile.toPath());
+				// version 2 is in UTF-8 and tells the kind of each entry, version 1 has no header
+				boolean version2 = new String(content, 0, Math.min(content.length, WEBCLASSPATH_2_HEADER.length()), "US-ASCII")
+						.equals(WEBCLASSPATH_2_HEADER);
+				reader = new InputStreamReader(new ByteArrayInputStream(content), version2 ? "UTF-8" : Charset.defaultCharset().name());
 				LineNumberReader lr = new LineNumberReader(reader);
 				String line = null;
 				while((line = lr.readLine()) != null) {
+					if (line.length() == 0 || (version2 && line.startsWith("#"))) {
+						continue;
+					}
 					// convert '\' to '/'
 					line = line.replace('\\', '/');
+					if (!version2) {
+						File f = new File(line);
+						if (!f.exists()) {
+							logError(line + " does not exist !");
+							continue;
+						}
+						if (f.isDirectory() && !line.endsWith("/")) {
+							line += "/";
+						}
+					}
 					rc.add(line);
 				}
+				reader.close();
 				return rc;
 			} catch(IOException ioEx) {
 				if (reader != null) try { reader.close(); } catch(Exception ignored) {}
@@ -0,0 +1,256 @@
+package org.apache.catalina.loader;
+
+import java.net.URL;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What the entries of the web classpath serve : classes and resources found in each
+ * of them, time spent loading classes, and lookups of names found nowhere.
+ *
+ * Entries are probed in order, after the web application itself, so the misses of an
+ * entry are the names served by the entries after it and the names found nowhere once
+ * it was added. They are computed from these counters rather than counted per probe.
+ *
+ * Registered by DevLoader as an MBean of type DevLoaderStatistics for its context, so
+ * entries which serve nothing or are slow can be found with a JMX console.
+ */
+public class DevLoaderStatistics {
+
+	/** name of the entry counting classes and resources of the web application itself */
+	static final String WEBAPP = "(webapp)";
+
+	/**
+	 * Counters of a web classpath entry
+	 */
+	private static class Entry {
+		final String url;
+		final AtomicLong classes = new AtomicLong();
+		final AtomicLong resources = new AtomicLong();
+		final AtomicLong nanos = new AtomicLong();
+		/** names found nowhere before this entry was added */
+		final AtomicLong notFoundBefore = new AtomicLong();
+
+		Entry(String url) {
+			this.url = url;
+		}
+
+		void reset() {
+			classes.set(0);
+			resources.set(0);
+			nanos.set(0);
+			notFoundBefore.set(0);
+		}
+	}
+
+	private final List<Entry> entries = new CopyOnWriteArrayList<Entry>();
+	private final Map<String, Entry> entriesByUrl = new ConcurrentHashMap<String, Entry>();
+	private final Entry webapp = new Entry(WEBAPP);
+	private final AtomicLong classesNotFound = new AtomicLong();
+	private final AtomicLong notFoundNanos = new AtomicLong();
+	private final AtomicLong resourcesNotFound = new AtomicLong();
+	private final AtomicLong classesAnsweredByIndex = new AtomicLong();
+	private final AtomicLong resourcesAnsweredByIndex = new AtomicLong();
+
+	/**
+	 * Count classes and resources of this web classpath entry
+	 */
+	void addEntry(URL url) {
+		Entry entry = new Entry(url.toString());
+		entry.notFoundBefore.set(getProbedNotFound());
+		entries.add(entry);
+		entriesByUrl.put(entry.url, entry);
+	}
+
+	void classLoaded(Class<?> loaded, long nanos) {
+		CodeSource codeSource = loaded.getProtectionDomain().getCodeSource();
+		Entry entry = codeSource == null || codeSource.getLocation() == null
+				? null : entriesByUrl.get(codeSource.getLocation().toString());
+		if (entry == null) {
+			entry = webapp;
+		}
+		entry.classes.incrementAndGet();
+		entry.nanos.addAndGet(nanos);
+	}
+
+	void classNotFound(long nanos) {
+		classesNotFound.incrementAndGet();
+		notFoundNanos.addAndGet(nanos);
+	}
+
+	void resourceFound(URL url) {
+		getEntry(url.toString()).resources.incrementAndGet();
+	}
+
+	void resourceNotFound() {
+		resourcesNotFound.incrementAndGet();
+	}
+
+	void classAnsweredByIndex() {
+		classesAnsweredByIndex.incrementAndGet();
+	}
+
+	void resourceAnsweredByIndex() {
+		resourcesAnsweredByIndex.incrementAndGet();
+	}
+
+	/**
+	 * @return entry serving the resource at this URL, the web application if none
+	 */
+	private Entry getEntry(String resourceUrl) {
+		if (resourceUrl.startsWith("jar:")) {
+			int separator = resourceUrl.indexOf("!/");
+			Entry entry = separator == -1 ? null : entriesByUrl.get(resourceUrl.substring(4, separator));
+			return entry == null ? webapp : entry;
+		}
+		for (Entry entry : entries) {
+			if (entry.url.endsWith("/") && resourceUrl.startsWith(entry.url)) {
+				return entry;
+			}
+		}
+		return webapp;
+	}
+
+	public long getClassesLoaded() {
+		long count = webapp.classes.get();
+		for (Entry entry : entries) {
+			count += entry.classes.get();
+		}
+		return count;
+	}
+
+	public long getResourcesFound() {
+		long count = webapp.resources.get();
+		for (Entry entry : entries) {
+			count += entry.resources.get();
+		}
+		return count;
+	}
+
+	/**
+	 * @return milliseconds spent finding and defining the classes loaded
+	 */
+	public long getLoadTime() {
+		long nanos = webapp.nanos.get();
+		for (Entry entry : entries) {
+			nanos += entry.nanos.get();
+		}
+		return nanos / 1000000;
+	}
+
+	/**
+	 * @return number of classes looked up but found in no entry, most are then loaded
+	 * by the parent class loader
+	 */
+	public long getClassesNotFound() {
+		return classesNotFound.get() + classesAnsweredByIndex.get();
+	}
+
+	/**
+	 * @return number of resources looked up but found in no entry
+	 */
+	public long getResourcesNotFound() {
+		return resourcesNotFound.get() + resourcesAnsweredByIndex.get();
+	}
+
+	/**
+	 * @return milliseconds spent looking up classes found in no entry
+	 */
+	public long getNotFoundTime() {
+		return notFoundNanos.get() / 1000000;
+	}
+
+	/**
+	 * @return number of the classes not found which were answered by the index
+	 * without probing entries
+	 */
+	public long getClassesAnsweredByIndex() {
+		return classesAnsweredByIndex.get();
+	}
+
+	/**
+	 * @return number of resources looked up but found in no entry, as answered by
+	 * the index without probing entries
+	 */
+	public long getResourcesAnsweredByIndex() {
+		return resourcesAnsweredByIndex.get();
+	}
+
+	/**
+	 * @return one line per entry, the web application first :
+	 * classes loaded, resources found, load time in ms, misses, entry
+	 */
+	public String[] getEntryStatistics() {
+		String[] lines = new String[entries.size() + 1];
+		long notFound = getProbedNotFound();
+		// names served after an entry were missed by it
+		long servedAfter = 0;
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			Entry entry = entries.get(i);
+			lines[i + 1] = toString(entry, servedAfter + notFound - entry.notFoundBefore.get());
+			servedAfter += entry.classes.get() + entry.resources.get();
+		}
+		lines[0] = toString(webapp, servedAfter + notFound);
+		return lines;
+	}
+
+	/**
+	 * @return misses of each entry, as in {@link #getEntryStatistics()}
+	 */
+	public long[] getEntryMisses() {
+		long[] misses = new long[entries.size()];
+		long notFound = getProbedNotFound();
+		long servedAfter = 0;
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			Entry entry = entries.get(i);
+			misses[i] = servedAfter + notFound - entry.notFoundBefore.get();
+			servedAfter += entry.classes.get() + entry.resources.get();
+		}
+		return misses;
+	}
+
+	/**
+	 * @return entries which served neither a class nor a resource
+	 */
+	public String[] getUnusedEntries() {
+		List<String> unused = new ArrayList<String>();
+		for (Entry entry : entries) {
+			if (entry.classes.get() == 0 && entry.resources.get() == 0) {
+				unused.add(entry.url);
+			}
+		}
+		return unused.toArray(new String[unused.size()]);
+	}
+
+	/**
+	 * Start counting again
+	 */
+	public void reset() {
+		webapp.reset();
+		for (Entry entry : entries) {
+			entry.reset();
+		}
+		classesNotFound.set(0);
+		notFoundNanos.set(0);
+		resourcesNotFound.set(0);
+		classesAnsweredByIndex.set(0);
+		resourcesAnsweredByIndex.set(0);
+	}
+
+	/**
+	 * @return names looked up in entries, but found in none of them
+	 */
+	private long getProbedNotFound() {
+		return classesNotFound.get() + resourcesNotFound.get();
+	}
+
+	private static String toString(Entry entry, long misses) {
+		return entry.classes.get() + " classes, " + entry.resources.get() + " resources, "
+				+ entry.nanos.get() / 1000000 + " ms, " + misses + " misses : " + entry.url;
+	}
+}
@@ -0,0 +1,108 @@
+package org.apache.catalina.loader;
+
+import java.io.IOException;
+import java.net.URL;
+
+import org.apache.catalina.LifecycleException;
+
+/**
+ * Web application class loader of DevLoader : lookups of classes and resources
+ * which are in no entry of the web classpath, as the classes of Tomcat or of the JRE
+ * looked up first in the web application, are answered by a {@link DevClassPathIndex}
+ * instead of probing each entry.
+ *
+ * What each entry serves is counted in {@link DevLoaderStatistics}.
+ */
+public class DevWebappClassLoader extends ParallelWebappClassLoader {
+
+	static {
+		ClassLoader.registerAsParallelCapable();
+	}
+
+	private volatile DevClassPathIndex index;
+	private final DevLoaderStatistics statistics = new DevLoaderStatistics();
+
+	public DevWebappClassLoader() {
+		super();
+	}
+
+	public DevWebappClassLoader(ClassLoader parent) {
+		super(parent);
+	}
+
+	/**
+	 * @param index index of the URLs added, null to look up each of them
+	 */
+	public void setIndex(DevClassPathIndex index) {
+		this.index = index;
+	}
+
+	public DevClassPathIndex getIndex() {
+		return index;
+	}
+
+	public DevLoaderStatistics getStatistics() {
+		return statistics;
+	}
+
+	@Override
+	protected void addURL(URL url) {
+		super.addURL(url);
+		statistics.addEntry(url);
+	}
+
+	@Override
+	public Class<?> findClass(String name) throws ClassNotFoundException {
+		if (isAbsent(name.replace('.', '/') + ".class")) {
+			statistics.classAnsweredByIndex();
+			throw new ClassNotFoundException(name);
+		}
+		long start = System.nanoTime();
+		try {
+			Class<?> loaded = super.findClass(name);
+			statistics.classLoaded(loaded, System.nanoTime() - start);
+			return loaded;
+		} catch (ClassNotFoundException e) {
+			statistics.classNotFound(System.nanoTime() - start);
+			throw e;
+		}
+	}
+
+	@Override
+	public URL findResource(String name) {
+		if (isAbsent(name)) {
+			statistics.resourceAnsweredByIndex();
+			return null;
+		}
+		URL url = super.findResource(name);
+		if (url != null) {
+			statistics.resourceFound(url);
+		} else {
+			statistics.resourceNotFound();
+		}
+		return url;
+	}
+
+	@Override
+	public void stop() throws LifecycleException {
+		super.stop();
+		DevClassPathIndex current = index;
+		index = null;
+		if (current != null) {
+			try {
+				current.close();
+			} catch (IOException e) {
+				// nothing more to release
+			}
+		}
+	}
+
+	/**
+	 * @return true if name is neither in the web classpath entries nor in the web application
+	 */
+	private boolean isAbsent(String name) {
+		DevClassPathIndex current = index;
+		return current != null && current.isAbsent(name)
+				&& (resources == null || !resources.getClassLoaderResource("/" + name).exists());
+	}
+}
@@ -0,0 +1,146 @@
+package org.apache.catalina.loader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Benchmark of the lookups made while a web application starts, with and without
+ * DevClassPathIndex. By default the web classpath has 40 output directories and
+ * 300 jars, and 20000 classes of Tomcat or of the JRE are looked up in it before
+ * being found by the parent class loader, with 5000 classes of the application.
+ * Not a unit test, run it as a Java application, with the number of directories
+ * and jars as optional arguments.
+ */
+public class DevClassPathIndexBenchmark {
+
+	private static final int CLASSES_PER_ENTRY = 200;
+	private static final int MISSES = 20000;
+	private static final int HITS = 5000;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException {
+		int directories = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+		int jars = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+		File root = File.createTempFile("devloader", "");
+		root.delete();
+		root.mkdir();
+		try {
+			List<File> entries = createEntries(root, directories, jars);
+			System.out.println(directories + " directories, " + jars + " jars, "
+					+ MISSES + " classes not found, " + HITS + " classes found");
+
+			URL[] urls = new URL[entries.size()];
+			for (int i = 0; i < urls.length; i++) {
+				urls[i] = entries.get(i).toURI().toURL();
+			}
+			List<String> lookups = new ArrayList<String>();
+			for (int i = 0; i < MISSES; i++) {
+				lookups.add("org/apache/tomcat/p" + (i % 50) + "/Class" + i + ".class");
+			}
+			for (int i = 0; i < HITS; i++) {
+				int entry = i % entries.size();
+				lookups.add("com/example/e" + entry + "/Class" + (i % CLASSES_PER_ENTRY) + ".class");
+			}
+
+			// warm up
+			lookup(urls, lookups, null);
+
+			long withoutIndex = 0;
+			long withIndex = 0;
+			long indexing = 0;
+			for (int i = 0; i < ROUNDS; i++) {
+				withoutIndex += lookup(urls, lookups, null);
+				long start = System.currentTimeMillis();
+				DevClassPathIndex index = new DevClassPathIndex();
+				index.watch();
+				for (File entry : entries) {
+					if (entry.isDirectory()) {
+						index.addDirectory(entry);
+					} else {
+						index.addJar(entry);
+					}
+				}
+				indexing += System.currentTimeMillis() - start;
+				withIndex += lookup(urls, lookups, index);
+				index.close();
+			}
+			System.out.println("lookups without index: " + withoutIndex / ROUNDS + " ms");
+			System.out.println("indexing: " + indexing / ROUNDS + " ms, lookups with index: " + withIndex / ROUNDS + " ms");
+		} finally {
+			delete(root);
+		}
+	}
+
+	/**
+	 * @return duration of the lookups in milliseconds, with a new class loader as when
+	 * the application starts
+	 */
+	private static long lookup(URL[] urls, List<String> lookups, DevClassPathIndex index) throws IOException {
+		URLClassLoader loader = new URLClassLoader(urls, null);
+		try {
+			long start = System.currentTimeMillis();
+			int found = 0;
+			for (String name : lookups) {
+				if ((index == null || !index.isAbsent(name)) && loader.findResource(name) != null) {
+					found++;
+				}
+			}
+			if (found != HITS) {
+				throw new IllegalStateException(found + " classes found instead of " + HITS);
+			}
+			return System.currentTimeMillis() - start;
+		} finally {
+			loader.close();
+		}
+	}
+
+	private static List<File> createEntries(File root, int directories, int jars) throws IOException {
+		byte[] content = new byte[256];
+		List<File> entries = new ArrayList<File>();
+		for (int i = 0; i < directories; i++) {
+			File dir = new File(root, "project" + i + "/bin");
+			File packageDir = new File(dir, "com/example/e" + entries.size());
+			packageDir.mkdirs();
+			for (int j = 0; j < CLASSES_PER_ENTRY; j++) {
+				FileOutputStream out = new FileOutputStream(new File(packageDir, "Class" + j + ".class"));
+				try {
+					out.write(content);
+				} finally {
+					out.close();
+				}
+			}
+			entries.add(dir);
+		}
+		for (int i = 0; i < jars; i++) {
+			File jar = new File(root, "lib" + i + ".jar");
+			ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+			try {
+				for (int j = 0; j < CLASSES_PER_ENTRY; j++) {
+					out.putNextEntry(new ZipEntry("com/example/e" + entries.size() + "/Class" + j + ".class"));
+					out.write(content);
+				}
+			} finally {
+				out.close();
+			}
+			entries.add(jar);
+		}
+		return entries;
+	}
+
+	private static void delete(File file) {
+		File[] files = file.listFiles();
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				delete(files[i]);
+			}
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,98 @@
+package org.apache.catalina.loader;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for DevClassPathIndex
+ */
+public class DevClassPathIndexTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testJar() throws Exception {
+		File jar = new File(folder.getRoot(), "lib.jar");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jar));
+		try {
+			// no directory entries
+			out.putNextEntry(new ZipEntry("a/b/C.class"));
+			out.putNextEntry(new ZipEntry("META-INF/resources/index.jsp"));
+		} finally {
+			out.close();
+		}
+		DevClassPathIndex index = new DevClassPathIndex();
+		index.addJar(jar);
+
+		assertThat(index.isAbsent("a/b/C.class"), equalTo(false));
+		assertThat(index.isAbsent("META-INF/resources/index.jsp"), equalTo(false));
+		assertThat(index.isAbsent("a/b/"), equalTo(false));
+		assertThat(index.isAbsent("a/"), equalTo(false));
+		assertThat(index.isAbsent("a/b/D.class"), equalTo(true));
+		assertThat(index.isAbsent("java/lang/String.class"), equalTo(true));
+		assertThat(index.isAbsent("Top.class"), equalTo(true));
+	}
+
+	@Test
+	public void testDirectoryPackages() throws Exception {
+		File classes = folder.newFolder("classes");
+		createFile(classes, "p/q/R.class");
+		DevClassPathIndex index = new DevClassPathIndex();
+		index.addDirectory(classes);
+
+		assertThat(index.isAbsent("p/q/R.class"), equalTo(false));
+		// may be compiled while the context runs
+		assertThat(index.isAbsent("p/q/S.class"), equalTo(false));
+		assertThat(index.isAbsent("p/T.class"), equalTo(false));
+		assertThat(index.isAbsent("Top.class"), equalTo(false));
+		assertThat(index.isAbsent("z/Z.class"), equalTo(true));
+		assertThat(index.isAbsent("p/z/Z.class"), equalTo(true));
+
+		// a package created since is found without a watcher
+		createFile(classes, "z/Z.class");
+		assertThat(index.isAbsent("z/Z.class"), equalTo(false));
+		assertThat(index.isAbsent("z/Y.class"), equalTo(false));
+	}
+
+	@Test
+	public void testWatchedNewPackage() throws Exception {
+		File classes = folder.newFolder("classes");
+		createFile(classes, "p/R.class");
+		DevClassPathIndex index = new DevClassPathIndex();
+		try {
+			index.watch();
+			index.addDirectory(classes);
+			int size = index.size();
+
+			createFile(classes, "n/m/N.class");
+			// the watcher adds the package and its content
+			long timeout = System.currentTimeMillis() + 20000;
+			while (index.size() < size + 3 && System.currentTimeMillis() < timeout) {
+				Thread.sleep(50);
+			}
+			assertThat(index.size(), equalTo(size + 3));
+			assertThat(index.isAbsent("n/m/N.class"), equalTo(false));
+			assertThat(index.isAbsent("n/m/M.class"), equalTo(false));
+			assertThat(index.isAbsent("x/X.class"), equalTo(true));
+		} finally {
+			index.close();
+		}
+	}
+
+	private static void createFile(File dir, String name) throws IOException {
+		File file = new File(dir, name);
+		file.getParentFile().mkdirs();
+		new FileOutputStream(file).close();
+	}
+}
@@ -0,0 +1,38 @@
+package org.apache.catalina.loader;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.net.URL;
+
+import org.junit.Test;
+
+/**
+ * Tests for DevLoaderStatistics
+ */
+public class DevLoaderStatisticsTest {
+
+	@Test
+	public void testEntryMisses() throws Exception {
+		DevLoaderStatistics statistics = new DevLoaderStatistics();
+		statistics.addEntry(new URL("file:/p/classes/"));
+		statistics.addEntry(new URL("file:/lib/a.jar"));
+		statistics.resourceFound(new URL("file:/p/classes/x.properties"));
+		statistics.resourceFound(new URL("jar:file:/lib/a.jar!/y.properties"));
+		statistics.resourceFound(new URL("jar:file:/lib/a.jar!/z.properties"));
+		statistics.resourceNotFound();
+
+		// added after a lookup found nowhere, which it could not miss
+		statistics.addEntry(new URL("file:/lib/b.jar"));
+		statistics.resourceNotFound();
+
+		long[] misses = statistics.getEntryMisses();
+		assertThat(misses.length, equalTo(3));
+		assertThat(misses[0], equalTo(4L));
+		assertThat(misses[1], equalTo(2L));
+		assertThat(misses[2], equalTo(1L));
+		assertThat(statistics.getEntryStatistics()[0],
+				equalTo("0 classes, 0 resources, 0 ms, 5 misses : " + DevLoaderStatistics.WEBAPP));
+		assertThat(statistics.getEntryStatistics()[2], equalTo("0 classes, 2 resources, 0 ms, 2 misses : file:/lib/a.jar"));
+	}
+}
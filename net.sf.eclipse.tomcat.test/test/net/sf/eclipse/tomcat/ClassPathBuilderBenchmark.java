@@ -0,0 +1,87 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Micro-benchmark comparing classpath assembly with List.contains deduplication
+ * and with ClassPathBuilder. Not a unit test, run it as a Java application.
+ */
+public class ClassPathBuilderBenchmark {
+
+	private static final int[] SIZES = {100, 400, 2000, 10000};
+	private static final int ROUNDS = 20;
+
+	public static void main(String[] args) {
+		for (int size : SIZES) {
+			String[] part1 = entries("/home/dev/.m2/repository/lib", size);
+			String[] part2 = entries("/home/dev/.m2/repository/lib", size);
+
+			// warm up both implementations before measuring
+			listConcatUniq(part1, part2);
+			StringUtil.concatUniq(part1, part2);
+
+			long listTime = 0;
+			long builderTime = 0;
+			for (int i = 0; i < ROUNDS; i++) {
+				long start = System.nanoTime();
+				listConcatUniq(part1, part2);
+				listTime += System.nanoTime() - start;
+
+				start = System.nanoTime();
+				StringUtil.concatUniq(part1, part2);
+				builderTime += System.nanoTime() - start;
+			}
+			System.out.println(size + " entries (x2, half duplicated): List.contains "
+					+ format(listTime) + " ms, ClassPathBuilder " + format(builderTime) + " ms");
+		}
+	}
+
+	/** previous implementation of StringUtil.concatUniq */
+	private static String[] listConcatUniq(String[] part1, String[] part2) {
+		List<String> nlist = new ArrayList<String>();
+		for (int i = 0; i < part1.length; i++) {
+			if (!nlist.contains(part1[i])) {
+				nlist.add(part1[i]);
+			}
+		}
+		for (int i = 0; i < part2.length; i++) {
+			if (!nlist.contains(part2[i])) {
+				nlist.add(part2[i]);
+			}
+		}
+		return nlist.toArray(new String[nlist.size()]);
+	}
+
+	/** size paths, every other one shared with an array built with the same prefix */
+	private static String[] entries(String prefix, int size) {
+		String[] result = new String[size];
+		for (int i = 0; i < size; i++) {
+			String name = (i % 2 == 0) ? "shared-" + i : "own-" + System.identityHashCode(result) + "-" + i;
+			result[i] = prefix + "/" + name + "/1.0/" + name + "-1.0.jar";
+		}
+		return result;
+	}
+
+	private static String format(long nanos) {
+		return String.valueOf(nanos / ROUNDS / 10000 / 100.0);
+	}
+}
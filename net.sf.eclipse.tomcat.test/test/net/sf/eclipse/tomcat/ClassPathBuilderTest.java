@@ -0,0 +1,53 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for ClassPathBuilder
+ */
+public class ClassPathBuilderTest {
+
+	@Test
+	public void testFirstOccurrenceWins() {
+		ClassPathBuilder builder = new ClassPathBuilder(new String[] {"b.jar", "a.jar", "b.jar"});
+		builder.addAll(Arrays.asList("c.jar", "a.jar"));
+
+		assertThat(builder.toArray(), equalTo(new String[] {"b.jar", "a.jar", "c.jar"}));
+		assertThat(builder.toList(), equalTo(Arrays.asList("b.jar", "a.jar", "c.jar")));
+		assertThat(builder.size(), equalTo(3));
+	}
+
+	@Test
+	public void testAdd() {
+		ClassPathBuilder builder = new ClassPathBuilder();
+		assertThat(builder.isEmpty(), equalTo(true));
+		assertThat(builder.add("a.jar"), equalTo(true));
+		assertThat(builder.add("a.jar"), equalTo(false));
+		assertThat(builder.contains("a.jar"), equalTo(true));
+		assertThat(builder.contains("b.jar"), equalTo(false));
+	}
+
+}
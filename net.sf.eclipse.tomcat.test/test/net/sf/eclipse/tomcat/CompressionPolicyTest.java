@@ -0,0 +1,63 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+import org.junit.Test;
+
+/**
+ * Tests for CompressionPolicy
+ */
+public class CompressionPolicyTest {
+
+	private static final byte[] TEXT = "<html>".getBytes();
+	private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0 };
+
+	@Test
+	public void testGetMethod() {
+		CompressionPolicy policy = new CompressionPolicy().addStoredExtensions("jar;.WOFF2");
+
+		assertThat(policy.getMethod("index.html", TEXT, TEXT.length), equalTo(ZipEntry.DEFLATED));
+		// by extension, case insensitive
+		assertThat(policy.getMethod("WEB-INF/lib/a.jar", TEXT, TEXT.length), equalTo(ZipEntry.STORED));
+		assertThat(policy.getMethod("fonts/a.woff2", TEXT, TEXT.length), equalTo(ZipEntry.STORED));
+		assertThat(policy.getMethod("jar/readme", TEXT, TEXT.length), equalTo(ZipEntry.DEFLATED));
+		// by magic number, whatever the name
+		assertThat(policy.getMethod("images/logo", PNG, PNG.length), equalTo(ZipEntry.STORED));
+		assertThat(policy.getMethod("images/logo", PNG, 4), equalTo(ZipEntry.DEFLATED));
+		// nothing to compress
+		assertThat(policy.getMethod("empty.txt", TEXT, 0), equalTo(ZipEntry.STORED));
+	}
+
+	@Test
+	public void testGetOptions() {
+		CompressionPolicy policy = new CompressionPolicy().addStoredExtensions("jar;png");
+		CompressionPolicy same = new CompressionPolicy().addStoredExtensions("png;.jar");
+		assertThat(policy.getOptions(), equalTo(same.getOptions()));
+
+		same.setLevel(Deflater.BEST_SPEED);
+		assertThat(policy.getOptions().equals(same.getOptions()), equalTo(false));
+	}
+
+}
@@ -0,0 +1,83 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+/**
+ * Micro-benchmark of ContextXmlEditor on large server.xml files with many hosts.
+ * Not a unit test, run it as a Java application.
+ */
+public class ContextXmlEditorBenchmark {
+
+	private static final int[] HOSTS = {1, 10, 50, 200};
+	private static final int CONTEXTS_PER_HOST = 50;
+	private static final int ROUNDS = 50;
+
+	public static void main(String[] args) {
+		for (int hosts : HOSTS) {
+			String xml = serverXml(hosts);
+			// the last Context of the last Host is the worst case
+			String path = "/app-" + (hosts - 1) + "-" + (CONTEXTS_PER_HOST - 1);
+
+			// warm up
+			for (int i = 0; i < ROUNDS * 4; i++) {
+				update(xml, path);
+			}
+			long start = System.nanoTime();
+			for (int i = 0; i < ROUNDS; i++) {
+				update(xml, path);
+			}
+			long nanos = (System.nanoTime() - start) / ROUNDS;
+
+			System.out.println(hosts + " hosts, " + (hosts * CONTEXTS_PER_HOST) + " contexts, "
+					+ (xml.length() / 1024) + " KB: " + (nanos / 1000) + " us per update, "
+					+ (xml.length() * 1000L / Math.max(nanos, 1)) + " MB/s");
+		}
+	}
+
+	private static String update(String xml, String path) {
+		ContextXmlEditor editor = new ContextXmlEditor(xml, path);
+		editor.setAttribute("docBase", "/workspace/project");
+		editor.setAttribute("workDir", "/workspace/project/work");
+		editor.setChild("Loader", "<Loader className=\"org.apache.catalina.loader.DevLoader\" />");
+		editor.setBlock("<!-- Extra info begin -->", "<!-- Extra info end -->", "<Valve />");
+		return editor.getXml();
+	}
+
+	private static String serverXml(int hosts) {
+		StringBuffer xml = new StringBuffer();
+		xml.append("<?xml version='1.0' encoding='utf-8'?>\n");
+		xml.append("<Server port=\"8005\" shutdown=\"SHUTDOWN\">\n  <Service name=\"Catalina\">\n");
+		xml.append("    <Connector port=\"8080\" protocol=\"HTTP/1.1\" />\n");
+		xml.append("    <Engine name=\"Catalina\" defaultHost=\"host-0\">\n");
+		for (int h = 0; h < hosts; h++) {
+			xml.append("      <Host name=\"host-").append(h).append("\" appBase=\"webapps\">\n");
+			for (int c = 0; c < CONTEXTS_PER_HOST; c++) {
+				String path = "/app-" + h + "-" + c;
+				xml.append("        <!-- <Context path=\"").append(path).append("\" docBase=\"disabled\" /> -->\n");
+				xml.append("        <Context path=\"").append(path).append("\" reloadable=\"true\" docBase=\"/workspace")
+						.append(path).append("\" workDir=\"/workspace").append(path).append("/work\">\n");
+				xml.append("          <Resource name=\"jdbc/db\" auth=\"Container\" type=\"javax.sql.DataSource\" />\n");
+				xml.append("        </Context>\n");
+			}
+			xml.append("      </Host>\n");
+		}
+		xml.append("    </Engine>\n  </Service>\n</Server>\n");
+		return xml.toString();
+	}
+}
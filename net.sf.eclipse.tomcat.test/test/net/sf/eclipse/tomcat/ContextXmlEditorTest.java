@@ -0,0 +1,122 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+/**
+ * Tests for ContextXmlEditor
+ */
+public class ContextXmlEditorTest {
+
+	private static final String SERVER_XML =
+			"<?xml version='1.0' encoding='utf-8'?>\n"
+			+ "<Server port=\"8005\" shutdown=\"SHUTDOWN\">\n"
+			+ "  <Service name=\"Catalina\">\n"
+			+ "    <Engine name=\"Catalina\" defaultHost=\"localhost\">\n"
+			+ "      <Host name=\"localhost\" appBase=\"webapps\">\n"
+			+ "        <!-- <Context path=\"/app\" docBase=\"commented\" /> -->\n"
+			+ "        <Context docBase=\"/old/app\" path=\"/app\" reloadable=\"false\">\n"
+			+ "          <Loader className=\"old\" />\n"
+			+ "          <Resource name=\"jdbc/db\" auth=\"Container\" />\n"
+			+ "        </Context>\n"
+			+ "        <Context path=\"/other\" docBase=\"/other\" />\n"
+			+ "      </Host>\n"
+			+ "    </Engine>\n"
+			+ "  </Service>\n"
+			+ "</Server>\n";
+
+	@Test
+	public void testFindContextOutsideComments() {
+		ContextXmlEditor editor = new ContextXmlEditor(SERVER_XML, "/app");
+		assertThat(editor.hasContext(), equalTo(true));
+		assertThat(editor.getAttribute("docBase"), equalTo("/old/app"));
+		assertThat(editor.hasChild("Loader"), equalTo(true));
+		assertThat(editor.hasChild("Logger"), equalTo(false));
+
+		assertThat(new ContextXmlEditor(SERVER_XML, "/missing").hasContext(), equalTo(false));
+		assertThat(new ContextXmlEditor(SERVER_XML, "/ap").hasContext(), equalTo(false));
+	}
+
+	@Test
+	public void testUpdateOnlyRewritesContext() {
+		ContextXmlEditor editor = new ContextXmlEditor(SERVER_XML, "/app");
+		editor.setAttribute("docBase", "/new/a&b");
+		editor.setAttribute("workDir", "/work");
+		editor.setChild("Loader", "<Loader className=\"new\" />");
+
+		String expected = SERVER_XML
+				.replace("docBase=\"/old/app\" path=\"/app\" reloadable=\"false\">",
+						"docBase=\"/new/a&amp;b\" path=\"/app\" reloadable=\"false\" workDir=\"/work\">")
+				.replace("<Loader className=\"old\" />", "<Loader className=\"new\" />");
+		assertThat(editor.getXml(), equalTo(expected));
+		assertThat(editor.getAttribute("docBase"), equalTo("/new/a&b"));
+	}
+
+	@Test
+	public void testChildOfSelfClosingContext() {
+		ContextXmlEditor editor = new ContextXmlEditor(SERVER_XML, "/other");
+		editor.setChild("Loader", "<Loader />");
+		editor.setBlock("<!-- begin -->", "<!-- end -->", "<Valve />");
+
+		String expected = SERVER_XML.replace("<Context path=\"/other\" docBase=\"/other\" />",
+				"<Context path=\"/other\" docBase=\"/other\">\n"
+				+ "        \t<!-- begin -->\n<Valve />\n<!-- end -->\n"
+				+ "        \t<Loader />\n"
+				+ "        </Context>");
+		assertThat(editor.getXml(), equalTo(expected));
+
+		editor.removeChild("Loader");
+		editor.removeBlock("<!-- begin -->", "<!-- end -->");
+		assertThat(editor.getXml(), equalTo(SERVER_XML.replace("<Context path=\"/other\" docBase=\"/other\" />",
+				"<Context path=\"/other\" docBase=\"/other\">\n        </Context>")));
+	}
+
+	@Test
+	public void testRemoveContext() {
+		ContextXmlEditor editor = new ContextXmlEditor(SERVER_XML, "/app");
+		editor.removeContext();
+		assertThat(editor.getXml(), equalTo(SERVER_XML.replace(
+				"        <Context docBase=\"/old/app\" path=\"/app\" reloadable=\"false\">\n"
+				+ "          <Loader className=\"old\" />\n"
+				+ "          <Resource name=\"jdbc/db\" auth=\"Container\" />\n"
+				+ "        </Context>\n", "")));
+	}
+
+	@Test
+	public void testInsertBeforeEndTag() {
+		String xml = ContextXmlEditor.insertBeforeEndTag(SERVER_XML, "Host", "<Context path=\"/new\" />\n");
+		assertThat(xml, equalTo(SERVER_XML.replace("      </Host>", "<Context path=\"/new\" />\n      </Host>")));
+		assertThat(new ContextXmlEditor(xml, "/new").hasContext(), equalTo(true));
+
+		assertThat(ContextXmlEditor.insertBeforeEndTag(SERVER_XML, "ContextManager", ""), nullValue());
+	}
+
+	@Test
+	public void testKeepLineSeparator() {
+		String xml = "<Context path=\"/app\" docBase=\"/app\" />\r\n";
+		ContextXmlEditor editor = new ContextXmlEditor(xml, "/app");
+		editor.setChild("Loader", "<Loader />");
+		assertThat(editor.getXml(), equalTo("<Context path=\"/app\" docBase=\"/app\">\r\n\t<Loader />\r\n</Context>\r\n"));
+	}
+}
@@ -0,0 +1,94 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for DirectorySync
+ */
+public class DirectorySyncTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testSync() throws Exception {
+		File source = folder.newFolder("source");
+		File target = new File(folder.getRoot(), "target");
+		File classes = new File(source, "WEB-INF/classes");
+		classes.mkdirs();
+		FileUtil.toTextFile(new File(source, "index.jsp"), "<html />");
+		FileUtil.toTextFile(new File(classes, "A.class"), "A");
+		FileUtil.toTextFile(new File(classes, "A.java"), "class A {}");
+
+		DirectorySync sync = new DirectorySync(source, target);
+		sync.getExcludeRules().add("*.java");
+		sync.sync();
+		assertThat(sync.getCopiedCount(), equalTo(2));
+		assertThat(FileUtil.readTextFile(new File(target, "WEB-INF/classes/A.class")), equalTo("A\n"));
+		assertThat(new File(target, "WEB-INF/classes/A.java").exists(), equalTo(false));
+		assertThat(new File(target, "index.jsp").lastModified(), equalTo(new File(source, "index.jsp").lastModified()));
+
+		// only the modified file is copied, removed ones are deleted
+		File index = new File(source, "index.jsp");
+		FileUtil.toTextFile(index, "<html>modified</html>");
+		index.setLastModified(index.lastModified() + 2000);
+		FileUtil.removeDir(classes);
+		FileUtil.toTextFile(new File(target, "extra.txt"), "extra");
+		sync.sync();
+		assertThat(sync.getCopiedCount(), equalTo(1));
+		assertThat(sync.getDeletedCount(), equalTo(3));
+		assertThat(FileUtil.readTextFile(new File(target, "index.jsp")), equalTo("<html>modified</html>\n"));
+		assertThat(new File(target, "WEB-INF/classes").exists(), equalTo(false));
+		assertThat(new File(target, "extra.txt").exists(), equalTo(false));
+
+		// same content with another time is not copied again
+		index.setLastModified(index.lastModified() + 2000);
+		sync.sync();
+		assertThat(sync.getCopiedCount(), equalTo(0));
+		assertThat(sync.getUnchangedCount(), equalTo(1));
+		assertThat(new File(target, "index.jsp").lastModified(), equalTo(index.lastModified()));
+		assertThat(target.list().length, equalTo(2));
+	}
+
+	@Test
+	public void testHardLinks() throws Exception {
+		File source = folder.newFolder("source");
+		File target = new File(folder.getRoot(), "target");
+		File index = new File(source, "index.jsp");
+		FileUtil.toTextFile(index, "<html />");
+
+		DirectorySync sync = new DirectorySync(source, target);
+		sync.setHardLinks(true);
+		sync.sync();
+		assertThat(sync.getCopiedCount() + sync.getLinkedCount(), equalTo(1));
+		assertThat(FileUtil.readTextFile(new File(target, "index.jsp")), equalTo("<html />\n"));
+
+		sync.sync();
+		assertThat(sync.getUnchangedCount(), equalTo(1));
+	}
+}
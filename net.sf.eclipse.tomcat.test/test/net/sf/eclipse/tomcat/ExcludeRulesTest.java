@@ -0,0 +1,89 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for ExcludeRules
+ */
+public class ExcludeRulesTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testNames() {
+		ExcludeRules rules = new ExcludeRules()
+				.addDirectoryNames("work;.git")
+				.addFileNames(".classpath;.project");
+
+		assertThat(rules.isExcluded("work", true), equalTo(true));
+		assertThat(rules.isExcluded("WEB-INF/.git", true), equalTo(true));
+		assertThat(rules.isExcluded("work", false), equalTo(false));
+		assertThat(rules.isExcluded(".project", false), equalTo(true));
+		assertThat(rules.isExcluded(".project", true), equalTo(false));
+		assertThat(rules.isExcluded("WEB-INF/web.xml", false), equalTo(false));
+	}
+
+	@Test
+	public void testGlobs() {
+		ExcludeRules rules = new ExcludeRules()
+				.add("*.log")
+				.add("node_modules/")
+				.add("/build/*.tmp")
+				.add("**/org/apache/jsp/")
+				.add("# comment")
+				.add("");
+
+		assertThat(rules.isExcluded("server.log", false), equalTo(true));
+		assertThat(rules.isExcluded("logs/2016/server.log", false), equalTo(true));
+		assertThat(rules.isExcluded("server.log.txt", false), equalTo(false));
+		assertThat(rules.isExcluded("js/node_modules", true), equalTo(true));
+		assertThat(rules.isExcluded("build/a.tmp", false), equalTo(true));
+		assertThat(rules.isExcluded("build/sub/a.tmp", false), equalTo(false));
+		assertThat(rules.isExcluded("src/build/a.tmp", false), equalTo(false));
+		assertThat(rules.isExcluded("org/apache/jsp", true), equalTo(true));
+		assertThat(rules.isExcluded("WEB-INF/classes/org/apache/jsp", true), equalTo(true));
+		assertThat(rules.isExcluded("WEB-INF/classes/org/apache/jspx", true), equalTo(false));
+		assertThat(rules.isExcluded("# comment", false), equalTo(false));
+	}
+
+	@Test
+	public void testAddFile() throws Exception {
+		File ignore = new File(folder.getRoot(), ExcludeRules.IGNORE_FILENAME);
+		FileUtil.toTextFile(ignore, "# generated\ntarget/\n*.bak\n");
+		ExcludeRules rules = new ExcludeRules().addFile(ignore);
+
+		assertThat(rules.isExcluded("target", true), equalTo(true));
+		assertThat(rules.isExcluded("index.jsp.bak", false), equalTo(true));
+		assertThat(rules.isExcluded("index.jsp", false), equalTo(false));
+
+		// missing file adds nothing
+		new ExcludeRules().addFile(new File(folder.getRoot(), "missing"));
+	}
+
+}
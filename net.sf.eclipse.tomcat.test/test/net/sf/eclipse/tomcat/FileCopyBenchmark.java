@@ -0,0 +1,133 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Benchmark of FileUtil.copyDir against the previous copy, which read files through
+ * an 8 KB buffer and walked the tree recursively with one thread. By default a tree
+ * of 5000 files of 32 KB is copied. Not a unit test, run it as a Java application,
+ * with the number of files and their size in KB as optional arguments.
+ */
+public class FileCopyBenchmark {
+
+	private static final int FILES_PER_DIRECTORY = 100;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException {
+		int files = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int size = args.length > 1 ? Integer.parseInt(args[1]) * 1024 : 32 * 1024;
+		File root = File.createTempFile("copy", "");
+		root.delete();
+		File input = new File(root, "input");
+		input.mkdirs();
+		try {
+			createTree(input, files, size);
+			System.out.println(files + " files of " + (size / 1024) + " KB, "
+					+ Runtime.getRuntime().availableProcessors() + " processors");
+
+			// warm up, so all copies read from the file system cache
+			copy(root, "warmup", 0);
+
+			// copies are interleaved, so they suffer the same write back of the file system
+			int threads = Runtime.getRuntime().availableProcessors();
+			long legacy = 0;
+			long single = 0;
+			long parallel = 0;
+			for (int i = 0; i < ROUNDS; i++) {
+				legacy += copy(root, "legacy", -1);
+				single += copy(root, "single", 1);
+				parallel += copy(root, "parallel", threads);
+			}
+			System.out.println("8 KB buffer, sequential: " + legacy / ROUNDS + " ms");
+			System.out.println("transferTo, 1 thread: " + single / ROUNDS + " ms");
+			System.out.println("transferTo, " + threads + " threads: " + parallel / ROUNDS + " ms");
+		} finally {
+			FileUtil.removeDir(root);
+		}
+	}
+
+	/**
+	 * @param threads -1 for the previous copy, 0 for the default one
+	 * @return duration of the copy in milliseconds
+	 */
+	private static long copy(File root, String name, int threads) throws IOException {
+		File input = new File(root, "input");
+		File output = new File(root, name);
+		output.mkdir();
+		long start = System.currentTimeMillis();
+		if (threads == -1) {
+			legacyCopyDir(input, output);
+		} else if (threads == 0) {
+			FileUtil.copyDir(input, output);
+		} else {
+			FileUtil.copyDir(input, output, threads);
+		}
+		long duration = System.currentTimeMillis() - start;
+		FileUtil.removeDir(output);
+		return duration;
+	}
+
+	private static void legacyCopyDir(File inputDir, File outputDir) throws IOException {
+		File[] files = inputDir.listFiles();
+		for (int i = 0; i < files.length; i++) {
+			File destFile = new File(outputDir, files[i].getName());
+			if (files[i].isDirectory()) {
+				destFile.mkdir();
+				legacyCopyDir(files[i], destFile);
+			} else {
+				BufferedInputStream in = new BufferedInputStream(new FileInputStream(files[i]));
+				BufferedOutputStream out = new BufferedOutputStream(new FileOutputStream(destFile));
+				byte[] buf = new byte[8192];
+				int n;
+				while ((n = in.read(buf)) >= 0) {
+					out.write(buf, 0, n);
+				}
+				in.close();
+				out.close();
+			}
+		}
+	}
+
+	private static void createTree(File root, int files, int size) throws IOException {
+		byte[] bytes = new byte[size];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) (i * 31);
+		}
+		File dir = null;
+		for (int i = 0; i < files; i++) {
+			if (i % FILES_PER_DIRECTORY == 0) {
+				dir = new File(root, "d" + (i / FILES_PER_DIRECTORY));
+				dir.mkdirs();
+			}
+			FileOutputStream out = new FileOutputStream(new File(dir, "file" + i + ".bin"));
+			try {
+				out.write(bytes);
+			} finally {
+				out.close();
+			}
+		}
+	}
+}
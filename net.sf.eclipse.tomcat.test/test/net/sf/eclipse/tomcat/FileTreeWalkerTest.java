@@ -0,0 +1,79 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for FileTreeWalker
+ */
+public class FileTreeWalkerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testWalk() throws Exception {
+		File root = folder.getRoot();
+		new File(root, "WEB-INF/classes").mkdirs();
+		new File(root, "node_modules/lib").mkdirs();
+		FileUtil.toTextFile(new File(root, "index.jsp"), "<html />");
+		FileUtil.toTextFile(new File(root, "WEB-INF/web.xml"), "<web-app />");
+		FileUtil.toTextFile(new File(root, "node_modules/lib/index.js"), "");
+
+		List<String> expected = new ArrayList<String>();
+		expected.add("WEB-INF/ dir");
+		expected.add("WEB-INF/classes/ dir");
+		expected.add("WEB-INF/web.xml 11");
+		expected.add("index.jsp 8");
+		expected.add("node_modules/ dir");
+
+		assertThat(walk(new FileTreeWalker.IoWalker(), root), equalTo(expected));
+		assertThat(walk(FileTreeWalker.getDefault(), root), equalTo(expected));
+	}
+
+	private static List<String> walk(FileTreeWalker walker, final File root) throws Exception {
+		final int start = root.getPath().length() + 1;
+		final List<String> result = new ArrayList<String>();
+		walker.walk(root, new FileTreeWalker.Visitor() {
+			public boolean visitDirectory(File dir, long time) {
+				result.add(dir.getPath().substring(start).replace('\\', '/') + "/ dir");
+				// content of node_modules is skipped
+				return !dir.getName().equals("node_modules");
+			}
+
+			public void visitFile(File file, long size, long time) {
+				result.add(file.getPath().substring(start).replace('\\', '/') + " " + size);
+			}
+		});
+		Collections.sort(result);
+		return result;
+	}
+
+}
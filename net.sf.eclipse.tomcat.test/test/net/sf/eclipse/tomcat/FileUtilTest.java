@@ -0,0 +1,124 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for FileUtil
+ */
+public class FileUtilTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testToTextFile() throws Exception {
+		File file = new File(folder.getRoot(), "server.xml");
+
+		assertThat(FileUtil.toTextFile(file, "<Server>\n"), equalTo(true));
+		assertThat(FileUtil.readTextFile(file), equalTo("<Server>\n"));
+
+		// existing file is replaced
+		assertThat(FileUtil.toTextFile(file, "<Server />\n"), equalTo(true));
+		assertThat(FileUtil.readTextFile(file), equalTo("<Server />\n"));
+
+		// same content is not written again
+		file.setLastModified(1000);
+		assertThat(FileUtil.toTextFile(file, "<Server />\n"), equalTo(false));
+		assertThat(file.lastModified(), equalTo(1000L));
+
+		// no temporary file left
+		assertThat(folder.getRoot().list().length, equalTo(1));
+	}
+
+	@Test
+	public void testSha256() throws Exception {
+		File file = new File(folder.getRoot(), "abc.txt");
+		FileUtil.toTextFile(file, "abc");
+		assertThat(FileUtil.sha256(file), equalTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"));
+	}
+
+
+	@Test
+	public void testCopyDir() throws Exception {
+		File input = folder.newFolder("input");
+		File output = folder.newFolder("output");
+		for (int i = 0; i < 10; i++) {
+			File dir = new File(input, "d" + (i % 3) + "/e");
+			dir.mkdirs();
+			File file = new File(dir, "f" + i + ".txt");
+			FileUtil.toTextFile(file, "file " + i);
+			file.setLastModified(1000000000000L + i * 1000);
+		}
+		new File(input, "d0").setLastModified(1000000000000L);
+
+		FileUtil.copyDir(input, output, 4);
+		for (int i = 0; i < 10; i++) {
+			File file = new File(output, "d" + (i % 3) + "/e/f" + i + ".txt");
+			assertThat(FileUtil.readTextFile(file), equalTo("file " + i + "\n"));
+			assertThat(file.lastModified(), equalTo(1000000000000L + i * 1000));
+		}
+		assertThat(new File(output, "d0").lastModified(), equalTo(1000000000000L));
+	}
+
+	@Test
+	public void testRemoveContent() throws Exception {
+		File work = createWorkFolder(300);
+
+		assertThat(FileUtil.removeContent(work, 4, new NullProgressMonitor()), equalTo(300));
+		assertThat(work.isDirectory(), equalTo(true));
+		assertThat(work.list().length, equalTo(0));
+	}
+
+	@Test
+	public void testRemoveContentCanceled() throws Exception {
+		File work = createWorkFolder(300);
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+
+		try {
+			FileUtil.removeContent(work, 4, monitor);
+			fail("clean should be canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertThat(new File(work, "org/apache/jsp/d0/page0_jsp.java").isFile(), equalTo(true));
+	}
+
+	private File createWorkFolder(int files) throws Exception {
+		File work = folder.newFolder("work");
+		for (int i = 0; i < files; i++) {
+			File dir = new File(work, "org/apache/jsp/d" + (i % 7));
+			dir.mkdirs();
+			FileUtil.toTextFile(new File(dir, "page" + i + "_jsp.java"), "class page" + i + " {}");
+		}
+		return work;
+	}
+}
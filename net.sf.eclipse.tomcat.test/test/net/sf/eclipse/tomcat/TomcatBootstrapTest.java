@@ -0,0 +1,51 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests for TomcatBootstrap
+ */
+public class TomcatBootstrapTest {
+
+	@Test
+	public void testConnectorPorts() throws Exception {
+		String serverXml = "<Server port=\"8005\" shutdown=\"SHUTDOWN\">\n"
+				+ "  <Service name=\"Catalina\">\n"
+				+ "    <Connector port=\"8080\" protocol=\"HTTP/1.1\"\n"
+				+ "               connectionTimeout=\"20000\" redirectPort=\"8443\" />\n"
+				+ "    <!--\n"
+				+ "    <Connector port=\"8443\" protocol=\"org.apache.coyote.http11.Http11NioProtocol\"\n"
+				+ "               maxThreads=\"150\" SSLEnabled=\"true\" />\n"
+				+ "    -->\n"
+				+ "    <!-- <Connector port=\"8009\" protocol=\"AJP/1.3\" redirectPort=\"8443\" /> -->\n"
+				+ "    <Connector port=\"-1\" protocol=\"AJP/1.3\" />\n"
+				+ "    <Connector protocol=\"AJP/1.3\" port=\"8010\" />\n"
+				+ "  </Service>\n"
+				+ "</Server>\n";
+
+		assertThat(TomcatBootstrap.getConnectorPorts(serverXml), equalTo(Arrays.asList(8080, 8010)));
+	}
+}
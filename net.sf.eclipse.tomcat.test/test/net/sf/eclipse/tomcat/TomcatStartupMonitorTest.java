@@ -0,0 +1,126 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.IStreamListener;
+import org.eclipse.debug.core.model.IProcess;
+import org.eclipse.debug.core.model.IStreamMonitor;
+import org.eclipse.debug.core.model.IStreamsProxy;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for TomcatStartupMonitor
+ */
+public class TomcatStartupMonitorTest {
+
+	private final List<IStreamListener> streamListeners = new ArrayList<IStreamListener>();
+	private final List<Long> readyTimes = new ArrayList<Long>();
+	private IStreamMonitor console;
+	private ILaunch launch;
+
+	@Before
+	public void setUp() {
+		console = stub(IStreamMonitor.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("addListener")) {
+					streamListeners.add((IStreamListener) args[0]);
+				} else if (method.getName().equals("removeListener")) {
+					streamListeners.remove(args[0]);
+				} else if (method.getName().equals("getContents")) {
+					return "";
+				}
+				return null;
+			}
+		});
+		final IStreamsProxy streams = stub(IStreamsProxy.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				return method.getName().equals("getErrorStreamMonitor") ? console : null;
+			}
+		});
+		final IProcess process = stub(IProcess.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				return method.getName().equals("getStreamsProxy") ? streams : null;
+			}
+		});
+		launch = stub(ILaunch.class, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				return method.getName().equals("getProcesses") ? new IProcess[] {process} : null;
+			}
+		});
+	}
+
+	@Test
+	public void testMarkerSplitBetweenChunks() {
+		TomcatStartupMonitor monitor = createMonitor();
+		monitor.watch(launch, System.currentTimeMillis());
+
+		append("INFO: Deployment of web application directory examples has finished\nINFO: Server star");
+		assertThat(readyTimes.size(), equalTo(0));
+		append("tup in 1234 ms\n");
+
+		assertThat(readyTimes.size(), equalTo(1));
+		assertThat(monitor.getHistory().length, equalTo(1));
+		// stops watching once found
+		assertThat(streamListeners.size(), equalTo(0));
+	}
+
+	@Test
+	public void testMarkerNotFound() {
+		TomcatStartupMonitor monitor = createMonitor();
+		monitor.watch(launch, System.currentTimeMillis());
+
+		append("INFO: Server");
+		append(" version name: Apache Tomcat\nINFO: Server startup");
+		append(" failed\n");
+
+		assertThat(readyTimes.size(), equalTo(0));
+		assertThat(streamListeners.size(), equalTo(1));
+	}
+
+	private TomcatStartupMonitor createMonitor() {
+		TomcatStartupMonitor monitor = new TomcatStartupMonitor();
+		monitor.addListener(new TomcatStartupListener() {
+			public void tomcatReady(ILaunch readyLaunch, long timeToReady) {
+				readyTimes.add(Long.valueOf(timeToReady));
+			}
+		});
+		return monitor;
+	}
+
+	private void append(String text) {
+		for (IStreamListener listener : new ArrayList<IStreamListener>(streamListeners)) {
+			listener.streamAppended(text, console);
+		}
+	}
+
+	private static <T> T stub(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(TomcatStartupMonitorTest.class.getClassLoader(), new Class<?>[] {type}, handler));
+	}
+}
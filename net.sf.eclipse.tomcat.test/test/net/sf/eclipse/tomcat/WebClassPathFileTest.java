@@ -0,0 +1,94 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for WebClassPathFile
+ */
+public class WebClassPathFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testEntryKinds() throws Exception {
+		File classes = folder.newFolder("classes");
+		File jar = folder.newFile("lib.jar");
+		String notBuilt = new File(folder.getRoot(), "bin").getPath();
+		String missingJar = new File(folder.getRoot(), "missing.jar").getPath();
+
+		WebClassPathFile file = new WebClassPathFile(Arrays.asList(classes.getPath(), jar.getPath(), notBuilt, missingJar));
+		File cpFile = new File(folder.getRoot(), ".#webclasspath");
+		file.write(cpFile);
+		String[] lines = FileUtil.readTextFile(cpFile).split("\n");
+
+		assertThat(lines.length, equalTo(5));
+		assertThat(lines[0], equalTo(file.getHeader()));
+		assertThat(lines[1].trim(), equalTo(classes.getPath() + "/"));
+		assertThat(lines[2].trim(), equalTo(jar.getPath()));
+		assertThat(lines[3].trim(), equalTo(notBuilt + "/"));
+		assertThat(lines[4].trim(), equalTo(missingJar));
+	}
+
+	@Test
+	public void testVersion1() throws Exception {
+		File classes = folder.newFolder("classes");
+		File jar = folder.newFile("lib.jar");
+
+		WebClassPathFile file = new WebClassPathFile(Arrays.asList(classes.getPath(), jar.getPath()), false);
+		File cpFile = new File(folder.getRoot(), ".#webclasspath");
+		assertThat(file.getHeader(), equalTo(null));
+		assertThat(file.write(cpFile), equalTo(true));
+		assertThat(file.write(cpFile), equalTo(false));
+		String[] lines = FileUtil.readTextFile(cpFile).split("\n");
+
+		// no header, directories as they are
+		assertThat(lines.length, equalTo(2));
+		assertThat(lines[0].trim(), equalTo(classes.getPath()));
+		assertThat(lines[1].trim(), equalTo(jar.getPath()));
+	}
+
+	@Test
+	public void testHeader() throws Exception {
+		WebClassPathFile file = new WebClassPathFile(Arrays.asList("/a.jar", "/b.jar"));
+		assertThat(file.getHeader().startsWith(WebClassPathFile.HEADER), equalTo(true));
+		assertThat(file.getHeader(), equalTo(new WebClassPathFile(Arrays.asList("/a.jar", "/b.jar")).getHeader()));
+		assertThat(file.getHeader().equals(new WebClassPathFile(Arrays.asList("/b.jar", "/a.jar")).getHeader()), equalTo(false));
+	}
+
+	@Test
+	public void testWriteOnlyWhenChanged() throws Exception {
+		File cpFile = new File(folder.getRoot(), ".#webclasspath");
+		assertThat(new WebClassPathFile(Arrays.asList("/a.jar")).write(cpFile), equalTo(true));
+		assertThat(new WebClassPathFile(Arrays.asList("/a.jar")).write(cpFile), equalTo(false));
+		assertThat(new WebClassPathFile(Arrays.asList("/a.jar", "/b.jar")).write(cpFile), equalTo(true));
+		assertThat(WebClassPathFile.readHeader(cpFile),
+				equalTo(new WebClassPathFile(Arrays.asList("/a.jar", "/b.jar")).getHeader()));
+	}
+}
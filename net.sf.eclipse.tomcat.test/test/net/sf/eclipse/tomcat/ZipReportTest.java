@@ -0,0 +1,95 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for ZipReport
+ */
+public class ZipReportTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testArtifact() {
+		assertThat(ZipReport.getArtifact("commons-lang3-3.4.jar"), equalTo("commons-lang3"));
+		assertThat(ZipReport.getVersion("commons-lang3-3.4.jar"), equalTo("3.4"));
+		assertThat(ZipReport.getArtifact("spring-core-4.3.1.RELEASE.jar"), equalTo("spring-core"));
+		assertThat(ZipReport.getVersion("spring-core-4.3.1.RELEASE.jar"), equalTo("4.3.1.RELEASE"));
+		assertThat(ZipReport.getArtifact("jstl.jar"), equalTo("jstl"));
+		assertThat(ZipReport.getVersion("jstl.jar"), equalTo(""));
+	}
+
+	@Test
+	public void testDuplicateJars() {
+		ZipReport report = new ZipReport("webapp.war");
+		report.add("WEB-INF/lib/commons-lang3-3.4.jar", 400, 380, 0, true);
+		report.add("WEB-INF/lib/commons-lang3-3.1.jar", 300, 290, 0, true);
+		report.add("WEB-INF/lib/jstl-1.2.jar", 100, 90, 0, true);
+		report.add("WEB-INF/classes/lib/jstl-1.1.jar", 100, 90, 0, true);
+
+		Map<String, List<String>> duplicates = report.getDuplicateJars();
+		assertThat(duplicates.size(), equalTo(1));
+		assertThat(duplicates.get("commons-lang3"), equalTo(Arrays.asList("commons-lang3-3.1.jar", "commons-lang3-3.4.jar")));
+	}
+
+	@Test
+	public void testReport() throws Exception {
+		File webapp = folder.newFolder("webapp");
+		File lib = new File(webapp, "WEB-INF/lib");
+		lib.mkdirs();
+		FileUtil.toTextFile(new File(webapp, "index.jsp"), "<html />");
+		FileUtil.toTextFile(new File(lib, "a-1.0.jar"), "a");
+		FileUtil.toTextFile(new File(lib, "a-2.0.jar"), "a");
+		File war = new File(webapp, "webapp.war");
+
+		Zipper zipper = new Zipper(war, webapp);
+		zipper.setReportWritten(true);
+		zipper.zip();
+		String json = FileUtil.readTextFile(zipper.getReportFile());
+		assertThat(json, containsString("\"archive\": \"webapp.war\""));
+		assertThat(json, containsString("{\"path\": \"WEB-INF/\", \"files\": 2, \"copiedFiles\": 0, \"size\": 2"));
+		assertThat(json, containsString("{\"artifact\": \"a\", \"jars\": [\"WEB-INF/lib/a-1.0.jar\", \"WEB-INF/lib/a-2.0.jar\"]}"));
+		assertThat(json, containsString("\"largestEntries\": [\n    {\"name\": \"index.jsp\", \"size\": 8"));
+
+		// the report is not part of the next archive
+		zipper = new Zipper(war, webapp);
+		zipper.zip();
+		assertThat(zipper.getCopiedCount(), equalTo(3));
+		assertThat(zipper.getCompressedCount(), equalTo(0));
+	}
+
+	@Test
+	public void testQuote() {
+		assertThat(ZipReport.quote("a\"b\\c\n"), equalTo("\"a\\\"b\\\\c\\u000a\""));
+	}
+}
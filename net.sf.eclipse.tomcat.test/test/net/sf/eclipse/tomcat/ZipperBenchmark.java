@@ -0,0 +1,113 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * Benchmark of Zipper on a large webapp tree, by default 50000 small files.
+ * Not a unit test, run it as a Java application, with the number of files as
+ * optional argument.
+ */
+public class ZipperBenchmark {
+
+	private static final int FILES_PER_DIRECTORY = 100;
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException {
+		int files = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+		File root = File.createTempFile("webapp", "");
+		root.delete();
+		root.mkdir();
+		try {
+			long start = System.currentTimeMillis();
+			createTree(root, files);
+			System.out.println(files + " files created in " + (System.currentTimeMillis() - start) + " ms");
+
+			// warm up
+			walk(new FileTreeWalker.IoWalker(), root);
+			walk(FileTreeWalker.getDefault(), root);
+
+			System.out.println("walk with File.listFiles: " + walk(new FileTreeWalker.IoWalker(), root) + " ms");
+			System.out.println("walk with " + FileTreeWalker.getDefault().getClass().getSimpleName() + ": "
+					+ walk(FileTreeWalker.getDefault(), root) + " ms");
+
+			File war = new File(root.getParentFile(), root.getName() + ".war");
+			try {
+				Zipper zipper = new Zipper(war, root);
+				zipper.zip();
+				System.out.println("full export: " + zipper.getSummary());
+				zipper = new Zipper(war, root);
+				zipper.zip();
+				System.out.println("incremental export: " + zipper.getSummary());
+			} finally {
+				war.delete();
+				new File(war.getPath() + ".manifest").delete();
+				new File(war.getPath() + ".sha256").delete();
+			}
+		} finally {
+			FileUtil.removeDir(root);
+		}
+	}
+
+	/**
+	 * @return average duration of a walk in milliseconds
+	 */
+	private static long walk(FileTreeWalker walker, File root) throws IOException {
+		final long[] count = new long[1];
+		FileTreeWalker.Visitor visitor = new FileTreeWalker.Visitor() {
+			public boolean visitDirectory(File dir, long time) {
+				count[0]++;
+				return true;
+			}
+
+			public void visitFile(File file, long size, long time) {
+				count[0] += size;
+			}
+		};
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < ROUNDS; i++) {
+			walker.walk(root, visitor);
+		}
+		return (System.currentTimeMillis() - start) / ROUNDS;
+	}
+
+	private static void createTree(File root, int files) throws IOException {
+		StringBuffer content = new StringBuffer();
+		for (int i = 0; i < 20; i++) {
+			content.append("<p>Line ").append(i).append(" of a small JSP page</p>\n");
+		}
+		byte[] bytes = content.toString().getBytes("UTF-8");
+		File dir = null;
+		for (int i = 0; i < files; i++) {
+			if (i % FILES_PER_DIRECTORY == 0) {
+				dir = new File(root, "WEB-INF/pages/p" + (i / 1000) + "/d" + (i / FILES_PER_DIRECTORY));
+				dir.mkdirs();
+			}
+			FileOutputStream out = new FileOutputStream(new File(dir, "page" + i + ".jsp"));
+			try {
+				out.write(bytes);
+			} finally {
+				out.close();
+			}
+		}
+	}
+}
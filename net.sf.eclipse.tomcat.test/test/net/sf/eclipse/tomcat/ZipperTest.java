@@ -0,0 +1,280 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or 
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests for Zipper
+ */
+public class ZipperTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testIncrementalZip() throws Exception {
+		File webapp = folder.newFolder("webapp");
+		File webInf = new File(webapp, "WEB-INF");
+		webInf.mkdir();
+		File index = new File(webapp, "index.jsp");
+		File web = new File(webInf, "web.xml");
+		FileUtil.toTextFile(index, "<html>été</html>");
+		FileUtil.toTextFile(web, "<web-app />");
+		File war = new File(folder.getRoot(), "webapp.war");
+
+		Zipper zipper = new Zipper(war, webapp);
+		zipper.zip();
+		assertThat(zipper.getCompressedCount(), equalTo(2));
+		assertThat(zipper.getCopiedCount(), equalTo(0));
+		assertThat(read(war, "index.jsp"), equalTo("<html>été</html>"));
+		assertThat(read(war, "WEB-INF/web.xml"), equalTo("<web-app />"));
+
+		// only the modified file is compressed again
+		FileUtil.toTextFile(web, "<web-app version=\"3.0\" />");
+		web.setLastModified(web.lastModified() + 2000);
+		zipper = new Zipper(war, webapp);
+		zipper.zip();
+		assertThat(zipper.getCompressedCount(), equalTo(1));
+		assertThat(zipper.getCopiedCount(), equalTo(1));
+		assertThat(read(war, "index.jsp"), equalTo("<html>été</html>"));
+		assertThat(read(war, "WEB-INF/web.xml"), equalTo("<web-app version=\"3.0\" />"));
+
+		ZipFile zipFile = new ZipFile(war);
+		try {
+			assertThat(zipFile.size(), equalTo(3));
+			assertThat(zipFile.getEntry("WEB-INF/").isDirectory(), equalTo(true));
+		} finally {
+			zipFile.close();
+		}
+
+		// without manifest, everything is compressed again
+		new File(folder.getRoot(), "webapp.war.manifest").delete();
+		zipper = new Zipper(war, webapp);
+		zipper.zip();
+		assertThat(zipper.getCompressedCount(), equalTo(2));
+	}
+
+	@Test
+	public void testCompressionPolicy() throws Exception {
+		File webapp = folder.newFolder("webapp");
+		FileUtil.toTextFile(new File(webapp, "index.jsp"), "<html></html>");
+		FileUtil.toTextFile(new File(webapp, "lib.jar"), "not really a jar");
+		File war = new File(folder.getRoot(), "webapp.war");
+
+		Zipper zipper = new Zipper(war, webapp);
+		zipper.getCompressionPolicy().addStoredExtensions("jar");
+		zipper.zip();
+		assertThat(zipper.getStoredCount(), equalTo(1));
+		assertThat(read(war, "lib.jar"), equalTo("not really a jar"));
+		ZipFile zipFile = new ZipFile(war);
+		try {
+			assertThat(zipFile.getEntry("lib.jar").getMethod(), equalTo(ZipEntry.STORED));
+			assertThat(zipFile.getEntry("index.jsp").getMethod(), equalTo(ZipEntry.DEFLATED));
+		} finally {
+			zipFile.close();
+		}
+
+		// another compression level, previous archive can not be reused
+		zipper = new Zipper(war, webapp);
+		zipper.getCompressionPolicy().addStoredExtensions("jar").setLevel(Deflater.BEST_SPEED);
+		zipper.zip();
+		assertThat(zipper.getCopiedCount(), equalTo(0));
+		assertThat(zipper.getCompressedCount(), equalTo(2));
+	}
+
+	@Test
+	public void testParallelZip() throws Exception {
+		File webapp = folder.newFolder("webapp");
+		StringBuffer content = new StringBuffer();
+		for (int i = 0; i < 20; i++) {
+			content.append("line ").append(i).append('\n');
+			FileUtil.toTextFile(new File(webapp, "file" + i + ".txt"), content.toString());
+		}
+		// larger than what is compressed in memory
+		while (content.length() < 2 * 1024 * 1024) {
+			content.append(content.length()).append('\n');
+		}
+		FileUtil.toTextFile(new File(webapp, "large.txt"), content.toString());
+
+		File sequentialWar = new File(folder.getRoot(), "sequential.war");
+		Zipper zipper = new Zipper(sequentialWar, webapp);
+		zipper.setThreads(1);
+		zipper.zip();
+
+		File parallelWar = new File(folder.getRoot(), "parallel.war");
+		zipper = new Zipper(parallelWar, webapp);
+		zipper.setThreads(4);
+		zipper.zip();
+
+		// same archive whatever the number of threads
+		assertThat(Arrays.equals(readBytes(parallelWar), readBytes(sequentialWar)), equalTo(true));
+		assertThat(read(parallelWar, "large.txt"), equalTo(content.toString()));
+		// no temporary file left, only archives, manifests and digests
+		assertThat(folder.getRoot().list().length, equalTo(7));
+	}
+
+	@Test
+	public void testReproducibleZip() throws Exception {
+		File webapp1 = folder.newFolder("webapp1");
+		File webapp2 = folder.newFolder("webapp2");
+		String[] names = { "b.jsp", "a.jsp", "c/d.txt" };
+		for (int i = 0; i < names.length; i++) {
+			File file1 = new File(webapp1, names[i]);
+			File file2 = new File(webapp2, names[names.length - 1 - i]);
+			file1.getParentFile().mkdirs();
+			file2.getParentFile().mkdirs();
+			FileUtil.toTextFile(file1, "content " + names[i]);
+			FileUtil.toTextFile(file2, "content " + names[names.length - 1 - i]);
+			file1.setLastModified(1000000000000L + i * 10000);
+		}
+
+		File war1 = new File(folder.getRoot(), "webapp1.war");
+		Zipper zipper = new Zipper(war1, webapp1);
+		zipper.setReproducible(true);
+		zipper.zip();
+		String digest = zipper.getDigest();
+
+		// same content, created in another order at another time
+		File war2 = new File(folder.getRoot(), "webapp2.war");
+		zipper = new Zipper(war2, webapp2);
+		zipper.setReproducible(true);
+		zipper.zip();
+		assertThat(zipper.getDigest(), equalTo(digest));
+		assertThat(Arrays.equals(readBytes(war1), readBytes(war2)), equalTo(true));
+		assertThat(FileUtil.readTextFile(new File(folder.getRoot(), "webapp2.war.sha256")), equalTo(digest + "  webapp2.war\n"));
+
+		// nothing changed, the archive is not replaced
+		war1.setLastModified(1000000000000L);
+		zipper = new Zipper(war1, webapp1);
+		zipper.setReproducible(true);
+		zipper.zip();
+		assertThat(zipper.isUnchanged(), equalTo(true));
+		assertThat(war1.lastModified(), equalTo(1000000000000L));
+
+		FileUtil.toTextFile(new File(webapp1, "a.jsp"), "modified");
+		zipper = new Zipper(war1, webapp1);
+		zipper.setReproducible(true);
+		zipper.zip();
+		assertThat(zipper.isUnchanged(), equalTo(false));
+		assertThat(read(war1, "a.jsp"), equalTo("modified"));
+	}
+
+	@Test
+	public void testReplacedZip() throws Exception {
+		File webapp = folder.newFolder("webapp");
+		File jsp = new File(webapp, "a.jsp");
+		FileUtil.toTextFile(jsp, "aaaa");
+		File war = new File(folder.getRoot(), "webapp.war");
+		File other = new File(folder.getRoot(), "other.war");
+		Zipper zipper = new Zipper(war, webapp);
+		zipper.setReproducible(true);
+		zipper.zip();
+
+		// the archive is replaced by another one of the same size, its digest file is older
+		long time = jsp.lastModified();
+		FileUtil.toTextFile(jsp, "bbbb");
+		jsp.setLastModified(time);
+		zipper = new Zipper(other, webapp);
+		zipper.setReproducible(true);
+		zipper.zip();
+		assertThat(other.length(), equalTo(war.length()));
+		FileUtil.copy(other, war);
+		war.setLastModified(new File(folder.getRoot(), "webapp.war.sha256").lastModified() + 10000);
+
+		FileUtil.toTextFile(jsp, "aaaa");
+		jsp.setLastModified(time);
+		zipper = new Zipper(war, webapp);
+		zipper.setReproducible(true);
+		zipper.zip();
+		assertThat(zipper.isUnchanged(), equalTo(false));
+		assertThat(read(war, "a.jsp"), equalTo("aaaa"));
+	}
+
+	@Test
+	public void testCanceledZip() throws Exception {
+		File webapp = folder.newFolder("webapp");
+		FileUtil.toTextFile(new File(webapp, "index.jsp"), "<html />");
+		File war = new File(folder.getRoot(), "webapp.war");
+		FileUtil.toTextFile(war, "previous");
+
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		try {
+			new Zipper(war, webapp).zip(monitor);
+			fail("export should be canceled");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		// previous archive is kept, no partial output left
+		assertThat(FileUtil.readTextFile(war), equalTo("previous\n"));
+		assertThat(folder.getRoot().list().length, equalTo(2));
+	}
+
+	private static byte[] readBytes(File file) throws Exception {
+		InputStream in = new FileInputStream(file);
+		try {
+			return toByteArray(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static byte[] toByteArray(InputStream in) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1024];
+		int n;
+		while ((n = in.read(buffer)) != -1) {
+			out.write(buffer, 0, n);
+		}
+		return out.toByteArray();
+	}
+
+	private static String read(File war, String name) throws Exception {
+		ZipFile zipFile = new ZipFile(war);
+		try {
+			ZipEntry entry = zipFile.getEntry(name);
+			InputStream in = zipFile.getInputStream(entry);
+			try {
+				return new String(toByteArray(in), "UTF-8");
+			} finally {
+				in.close();
+			}
+		} finally {
+			zipFile.close();
+		}
+	}
+}
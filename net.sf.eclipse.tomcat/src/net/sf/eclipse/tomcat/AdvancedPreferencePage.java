@@ -22,6 +22,7 @@ package net.sf.eclipse.tomcat;
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.DirectoryFieldEditor;
 import org.eclipse.jface.preference.FieldEditor;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.PreferencePage;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.layout.GridData;
@@ -42,6 +43,7 @@ import net.sf.eclipse.tomcat.editors.ProjectListEditor;
 public class AdvancedPreferencePage extends PreferencePage implements IWorkbenchPreferencePage, TomcatPluginResources {
 
     private BooleanFieldEditor securityEditor;
+    private IntegerFieldEditor shutdownTimeoutEditor;
     private DirectoryFieldEditor base;
     private ProjectListEditor projectListEditor;
 
@@ -73,6 +75,15 @@ public class AdvancedPreferencePage extends PreferencePage implements IWorkbench
         this.initField(securityEditor);
         initLayoutAndData(securityGroup, 1);
 
+        Group shutdownGroup = new Group(composite,SWT.NONE);
+        shutdownTimeoutEditor = new IntegerFieldEditor(
+                                                TomcatLauncherPlugin.TOMCAT_PREF_SHUTDOWN_TIMEOUT_KEY,
+                                                PREF_PAGE_SHUTDOWNTIMEOUT_LABEL,
+                                                shutdownGroup);
+        shutdownTimeoutEditor.setValidRange(1, 600);
+        this.initField(shutdownTimeoutEditor);
+        initLayoutAndData(shutdownGroup, 2);
+
         Group projectListGroup = new Group(composite,SWT.NONE);
         String[] excludedProjectsNature = {TomcatLauncherPlugin.NATURE_ID};
         projectListEditor = new ProjectListEditor(excludedProjectsNature);
@@ -97,8 +108,12 @@ public class AdvancedPreferencePage extends PreferencePage implements IWorkbench
 
     @Override
     public boolean performOk() {
+        if (!shutdownTimeoutEditor.isValid()) {
+            return false;
+        }
         base.store();
         securityEditor.store();
+        shutdownTimeoutEditor.store();
         TomcatLauncherPlugin.getDefault().setProjectsInCP(projectListEditor.getCheckedElements());
         TomcatLauncherPlugin.getDefault().savePluginPreferences();
         return true;
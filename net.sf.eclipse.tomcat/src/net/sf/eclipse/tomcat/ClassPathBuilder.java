@@ -0,0 +1,93 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ordered list of classpath entries without duplicates.
+ *
+ * Entries keep the order in which they were first added, adding an entry
+ * which is already present does nothing (first one wins, as for a classloader).
+ * Each add costs constant time, so a classpath is assembled in linear time.
+ */
+public class ClassPathBuilder implements Iterable<String> {
+
+	private final Set<String> entries = new LinkedHashSet<String>();
+
+	public ClassPathBuilder() {
+	}
+
+	public ClassPathBuilder(String[] initial) {
+		addAll(initial);
+	}
+
+	/**
+	 * @return true if entry was not already present
+	 */
+	public boolean add(String entry) {
+		return entries.add(entry);
+	}
+
+	public ClassPathBuilder addAll(String[] values) {
+		for (int i = 0; i < values.length; i++) {
+			entries.add(values[i]);
+		}
+		return this;
+	}
+
+	public ClassPathBuilder addAll(Collection<String> values) {
+		entries.addAll(values);
+		return this;
+	}
+
+	public boolean contains(String entry) {
+		return entries.contains(entry);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public boolean isEmpty() {
+		return entries.isEmpty();
+	}
+
+	public Iterator<String> iterator() {
+		return entries.iterator();
+	}
+
+	public String[] toArray() {
+		return entries.toArray(new String[entries.size()]);
+	}
+
+	public List<String> toList() {
+		return new ArrayList<String>(entries);
+	}
+
+	@Override
+	public String toString() {
+		return entries.toString();
+	}
+}
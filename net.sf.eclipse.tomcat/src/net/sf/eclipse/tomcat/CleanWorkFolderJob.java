@@ -0,0 +1,47 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.util.Locale;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+
+/**
+ * Delete the content of the JSP work folder of a Tomcat project in background,
+ * and tell how many files were deleted and how long it took.
+ * Canceling the job leaves the files not deleted yet.
+ */
+public class CleanWorkFolderJob extends TomcatProjectJob {
+
+	public CleanWorkFolderJob(TomcatProject project) {
+		super("job.cleanWork.name", project);
+	}
+
+	@Override
+	protected String execute(IProgressMonitor monitor) throws CoreException {
+		long start = System.currentTimeMillis();
+		int deleted = project.cleanWorkFolder(monitor);
+		String summary = String.format(Locale.ENGLISH, "%s : %d files deleted in %d ms",
+				project.getWorkFolder().getFullPath(), deleted, System.currentTimeMillis() - start);
+		TomcatLauncherPlugin.log(IStatus.INFO, summary);
+		return summary;
+	}
+}
@@ -0,0 +1,177 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringTokenizer;
+import java.util.TreeSet;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Choose how each entry of an exported archive is compressed.
+ *
+ * Data which is already compressed (jar, images, fonts...) gains nothing from being
+ * deflated again, it is STORED. Such data is recognized by the extension of its name,
+ * or by the first bytes of its content (magic number), which the writer reads anyway.
+ */
+public class CompressionPolicy {
+
+	/** magic numbers of common compressed formats */
+	private static final String[] DEFAULT_MAGIC_NUMBERS = {
+		"504b0304", // zip, jar, war
+		"1f8b", // gzip
+		"89504e470d0a1a0a", // png
+		"47494638", // gif
+		"ffd8ff", // jpeg
+		"774f4646", // woff
+		"774f4632", // woff2
+		"425a68", // bzip2
+		"fd377a585a00", // xz
+		"377abcaf271c", // 7z
+	};
+
+	private final TreeSet<String> extensions = new TreeSet<String>();
+	private final List<byte[]> magicNumbers = new ArrayList<byte[]>();
+	private int level = Deflater.DEFAULT_COMPRESSION;
+
+	/**
+	 * Policy storing common compressed formats, recognized by their magic number
+	 */
+	public CompressionPolicy() {
+		for (int i = 0; i < DEFAULT_MAGIC_NUMBERS.length; i++) {
+			magicNumbers.add(fromHex(DEFAULT_MAGIC_NUMBERS[i]));
+		}
+	}
+
+	/**
+	 * Store files with these extensions
+	 * @param list extensions separated by ';', with or without leading dot
+	 */
+	public CompressionPolicy addStoredExtensions(String list) {
+		StringTokenizer tokenizer = new StringTokenizer(list, ";, ");
+		while (tokenizer.hasMoreTokens()) {
+			String extension = tokenizer.nextToken().toLowerCase(Locale.ENGLISH);
+			if (extension.startsWith(".")) {
+				extension = extension.substring(1);
+			}
+			extensions.add(extension);
+		}
+		return this;
+	}
+
+	/**
+	 * Store files whose content starts with these bytes
+	 */
+	public CompressionPolicy addMagicNumber(byte[] magic) {
+		magicNumbers.add(magic.clone());
+		return this;
+	}
+
+	/**
+	 * @param level from Deflater.BEST_SPEED to Deflater.BEST_COMPRESSION,
+	 * or Deflater.DEFAULT_COMPRESSION
+	 */
+	public CompressionPolicy setLevel(int level) {
+		if ((level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) && level != Deflater.DEFAULT_COMPRESSION) {
+			throw new IllegalArgumentException("Invalid compression level " + level);
+		}
+		this.level = level;
+		return this;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * @param name entry name
+	 * @param head first bytes of the content
+	 * @param length number of bytes in head, 0 for an empty file
+	 * @return ZipEntry.STORED or ZipEntry.DEFLATED
+	 */
+	public int getMethod(String name, byte[] head, int length) {
+		if (length <= 0 || extensions.contains(getExtension(name))) {
+			return ZipEntry.STORED;
+		}
+		for (byte[] magic : magicNumbers) {
+			if (startsWith(head, length, magic)) {
+				return ZipEntry.STORED;
+			}
+		}
+		return ZipEntry.DEFLATED;
+	}
+
+	/**
+	 * Describe this policy, two policies with the same options compress
+	 * a file the same way. Subclasses overriding {@link #getMethod(String, byte[], int)}
+	 * must override this too.
+	 */
+	public String getOptions() {
+		StringBuffer result = new StringBuffer("level=").append(level).append(" stored=");
+		for (String extension : extensions) {
+			result.append(extension).append(';');
+		}
+		result.append(" magic=");
+		for (byte[] magic : magicNumbers) {
+			result.append(toHex(magic)).append(';');
+		}
+		return result.toString();
+	}
+
+	private static String getExtension(String name) {
+		int slash = name.lastIndexOf('/');
+		int dot = name.lastIndexOf('.');
+		if (dot <= slash + 1) {
+			return "";
+		}
+		return name.substring(dot + 1).toLowerCase(Locale.ENGLISH);
+	}
+
+	private static boolean startsWith(byte[] head, int length, byte[] magic) {
+		if (length < magic.length) {
+			return false;
+		}
+		for (int i = 0; i < magic.length; i++) {
+			if (head[i] != magic[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static byte[] fromHex(String hex) {
+		byte[] result = new byte[hex.length() / 2];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+		}
+		return result;
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuffer result = new StringBuffer();
+		for (int i = 0; i < bytes.length; i++) {
+			result.append(Character.forDigit((bytes[i] >> 4) & 0xf, 16));
+			result.append(Character.forDigit(bytes[i] & 0xf, 16));
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,517 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+/**
+ * Edit the Context element of a webapp, in server.xml or in a context file.
+ *
+ * The document is scanned once to locate the Context element with the requested path,
+ * comments, CDATA sections, processing instructions and DOCTYPE are skipped.
+ * Edits only rewrite this element, everything before and after it is left untouched.
+ *
+ * This is not a complete XML parser : it only knows what is needed to find elements
+ * and attributes in well-formed Tomcat configuration files.
+ */
+public class ContextXmlEditor {
+
+	private static final String CONTEXT = "Context";
+
+	private final String xml;
+	private final String lineSeparator;
+	/** bounds of the Context element in xml, contextStart is -1 if it was not found */
+	private int contextStart = -1;
+	private int contextEnd = -1;
+	/** current content of the Context element, null once removed */
+	private String context;
+
+	/**
+	 * @param xml content of server.xml or of a context file
+	 * @param path webapp path of the Context element to edit
+	 */
+	public ContextXmlEditor(String xml, String path) {
+		this.xml = xml;
+		this.lineSeparator = xml.indexOf("\r\n") != -1 ? "\r\n" : "\n";
+
+		int depth = 0;
+		Tag tag = nextTag(xml, 0);
+		while (tag != null) {
+			if (contextStart == -1) {
+				if (!tag.closing && tag.name.equals(CONTEXT) && path.equals(getAttribute(xml, tag, "path"))) {
+					contextStart = tag.start;
+					if (tag.selfClosing) {
+						contextEnd = tag.end;
+						break;
+					}
+				}
+			} else if (tag.closing) {
+				if (depth == 0) {
+					contextEnd = tag.end;
+					break;
+				}
+				depth--;
+			} else if (!tag.selfClosing) {
+				depth++;
+			}
+			tag = nextTag(xml, tag.end);
+		}
+
+		if (contextEnd == -1) {
+			// not found, or not closed
+			contextStart = -1;
+		} else {
+			context = xml.substring(contextStart, contextEnd);
+		}
+	}
+
+	/**
+	 * @return true if the document contains the Context element
+	 */
+	public boolean hasContext() {
+		return context != null;
+	}
+
+	/**
+	 * @return the document including all changes
+	 */
+	public String getXml() {
+		if (contextStart == -1) {
+			return xml;
+		}
+		if (context != null) {
+			return xml.substring(0, contextStart) + context + xml.substring(contextEnd);
+		}
+
+		// element removed, also remove its line if nothing else is on it
+		int from = skipBackward(xml, contextStart, " \t");
+		int to = skipForward(xml, contextEnd, " \t");
+		if ((from == 0 || xml.charAt(from - 1) == '\n') && (to == xml.length() || xml.charAt(to) == '\r' || xml.charAt(to) == '\n')) {
+			if (xml.startsWith("\r\n", to)) {
+				to += 2;
+			} else if (to < xml.length()) {
+				to++;
+			}
+		} else {
+			from = contextStart;
+			to = contextEnd;
+		}
+		return xml.substring(0, from) + xml.substring(to);
+	}
+
+	/**
+	 * Remove the Context element from the document
+	 */
+	public void removeContext() {
+		context = null;
+	}
+
+	/**
+	 * @return the unescaped value of an attribute of the Context element, null if not set
+	 */
+	public String getAttribute(String name) {
+		return getAttribute(context, parseTag(context, 0), name);
+	}
+
+	/**
+	 * Set an attribute of the Context element, an existing value is replaced in place
+	 * and a new attribute is added after the existing ones
+	 */
+	public void setAttribute(String name, String value) {
+		Tag start = parseTag(context, 0);
+		Attribute attribute = findAttribute(context, start, name);
+		if (attribute != null) {
+			context = context.substring(0, attribute.valueStart)
+					+ escape(value, context.charAt(attribute.valueEnd))
+					+ context.substring(attribute.valueEnd);
+		} else {
+			int insert = skipBackward(context, start.selfClosing ? start.end - 2 : start.end - 1, " \t\r\n");
+			context = context.substring(0, insert)
+					+ ' ' + name + "=\"" + escape(value, '"') + '"'
+					+ context.substring(insert);
+		}
+	}
+
+	/**
+	 * @return true if the Context element has a direct child element with this name
+	 */
+	public boolean hasChild(String name) {
+		return findChild(name) != null;
+	}
+
+	/**
+	 * Replace the first child element with this name by markup, or insert
+	 * markup as the first child if there is no such element
+	 */
+	public void setChild(String name, String markup) {
+		int[] child = findChild(name);
+		if (child != null) {
+			context = context.substring(0, child[0]) + markup + context.substring(child[1]);
+		} else {
+			insertFirst(markup);
+		}
+	}
+
+	/**
+	 * Remove the first child element with this name
+	 */
+	public void removeChild(String name) {
+		int[] child = findChild(name);
+		if (child != null) {
+			removeLine(child[0], child[1]);
+		}
+	}
+
+	/**
+	 * Replace the text between two marker comments inside the Context element, the
+	 * markers and text are inserted as first child if the markers are not present
+	 */
+	public void setBlock(String beginMarker, String endMarker, String content) {
+		int[] block = findBlock(beginMarker, endMarker);
+		if (block != null) {
+			context = context.substring(0, block[0] + beginMarker.length())
+					+ lineSeparator + content + lineSeparator
+					+ context.substring(block[1] - endMarker.length());
+		} else {
+			insertFirst(beginMarker + lineSeparator + content + lineSeparator + endMarker);
+		}
+	}
+
+	/**
+	 * Remove two marker comments and everything between them
+	 */
+	public void removeBlock(String beginMarker, String endMarker) {
+		int[] block = findBlock(beginMarker, endMarker);
+		if (block != null) {
+			removeLine(block[0], block[1]);
+		}
+	}
+
+	/**
+	 * Insert markup at the beginning of the line holding the first end tag
+	 * with this name, like &lt;/Host&gt; in server.xml
+	 * @return the new document, or null if there is no such end tag
+	 */
+	public static String insertBeforeEndTag(String xml, String name, String markup) {
+		Tag tag = nextTag(xml, 0);
+		while (tag != null && !(tag.closing && tag.name.equals(name))) {
+			tag = nextTag(xml, tag.end);
+		}
+		if (tag == null) {
+			return null;
+		}
+		int insert = skipBackward(xml, tag.start, " \t");
+		if (insert > 0 && xml.charAt(insert - 1) != '\n') {
+			// end tag is not at the beginning of a line
+			insert = tag.start;
+		}
+		return xml.substring(0, insert) + markup + xml.substring(insert);
+	}
+
+	/**
+	 * Insert markup right after the Context start tag, on its own line
+	 */
+	private void insertFirst(String markup) {
+		String indent = getIndent();
+		Tag start = parseTag(context, 0);
+		if (start.selfClosing) {
+			// <Context ... /> becomes <Context ...></Context>
+			int end = skipBackward(context, start.end - 2, " \t\r\n");
+			context = context.substring(0, end) + '>' + lineSeparator + indent + "</" + CONTEXT + '>';
+			start = parseTag(context, 0);
+		} else if (context.startsWith("</", start.end)) {
+			// <Context ...></Context>, put end tag on its own line
+			context = context.substring(0, start.end) + lineSeparator + indent + context.substring(start.end);
+		}
+		context = context.substring(0, start.end)
+				+ lineSeparator + indent + '\t' + markup
+				+ context.substring(start.end);
+	}
+
+	/**
+	 * Remove context[start, end[, and the line holding it if nothing else is on it
+	 */
+	private void removeLine(int start, int end) {
+		int from = skipBackward(context, start, " \t");
+		if (from > 0 && context.charAt(from - 1) == '\n') {
+			from--;
+			if (from > 0 && context.charAt(from - 1) == '\r') {
+				from--;
+			}
+		} else {
+			from = start;
+		}
+		context = context.substring(0, from) + context.substring(end);
+	}
+
+	/**
+	 * @return whitespace before the Context start tag on its line
+	 */
+	private String getIndent() {
+		int lineStart = skipBackward(xml, contextStart, " \t");
+		if (lineStart > 0 && xml.charAt(lineStart - 1) != '\n') {
+			return "";
+		}
+		return xml.substring(lineStart, contextStart);
+	}
+
+	/**
+	 * @return bounds in context of the first direct child element with this name, null if not found
+	 */
+	private int[] findChild(String name) {
+		int depth = 0;
+		int childStart = -1;
+		Tag tag = nextTag(context, parseTag(context, 0).end);
+		while (tag != null) {
+			if (tag.closing) {
+				if (depth == 0) {
+					// end of Context
+					return null;
+				}
+				depth--;
+				if (depth == 0 && childStart != -1) {
+					return new int[] {childStart, tag.end};
+				}
+			} else {
+				if (depth == 0 && tag.name.equals(name)) {
+					if (tag.selfClosing) {
+						return new int[] {tag.start, tag.end};
+					}
+					childStart = tag.start;
+				}
+				if (!tag.selfClosing) {
+					depth++;
+				}
+			}
+			tag = nextTag(context, tag.end);
+		}
+		return null;
+	}
+
+	/**
+	 * @return bounds in context of the block including its markers, null if not found
+	 */
+	private int[] findBlock(String beginMarker, String endMarker) {
+		int begin = context.indexOf(beginMarker, parseTag(context, 0).end);
+		if (begin == -1) {
+			return null;
+		}
+		int end = context.indexOf(endMarker, begin + beginMarker.length());
+		if (end == -1) {
+			return null;
+		}
+		return new int[] {begin, end + endMarker.length()};
+	}
+
+	/**
+	 * @return next start or end tag at or after from, null if there is none
+	 */
+	private static Tag nextTag(String s, int from) {
+		int i = s.indexOf('<', from);
+		while (i != -1) {
+			if (s.startsWith("<!--", i)) {
+				i = skipPast(s, i + 4, "-->");
+			} else if (s.startsWith("<![CDATA[", i)) {
+				i = skipPast(s, i + 9, "]]>");
+			} else if (s.startsWith("<?", i)) {
+				i = skipPast(s, i + 2, "?>");
+			} else if (s.startsWith("<!", i)) {
+				i = skipDeclaration(s, i + 2);
+			} else {
+				return parseTag(s, i);
+			}
+			if (i == -1) {
+				return null;
+			}
+			i = s.indexOf('<', i);
+		}
+		return null;
+	}
+
+	private static int skipPast(String s, int from, String terminator) {
+		int end = s.indexOf(terminator, from);
+		return end == -1 ? -1 : end + terminator.length();
+	}
+
+	/**
+	 * Skip a DOCTYPE, which may have an internal subset holding '>'
+	 */
+	private static int skipDeclaration(String s, int from) {
+		int brackets = 0;
+		char quote = 0;
+		for (int i = from; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '[') {
+				brackets++;
+			} else if (c == ']') {
+				brackets--;
+			} else if (c == '>' && brackets <= 0) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * @param start index of '&lt;'
+	 * @return the tag, null if it is not terminated
+	 */
+	private static Tag parseTag(String s, int start) {
+		Tag tag = new Tag();
+		tag.start = start;
+		int i = start + 1;
+		if (i < s.length() && s.charAt(i) == '/') {
+			tag.closing = true;
+			i++;
+		}
+		int nameStart = i;
+		while (i < s.length() && !isNameEnd(s.charAt(i))) {
+			i++;
+		}
+		tag.name = s.substring(nameStart, i);
+		tag.attributesStart = i;
+
+		char quote = 0;
+		for (; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (c == '>') {
+				tag.end = i + 1;
+				tag.selfClosing = s.charAt(i - 1) == '/';
+				return tag;
+			}
+		}
+		return null;
+	}
+
+	private static String getAttribute(String s, Tag tag, String name) {
+		Attribute attribute = findAttribute(s, tag, name);
+		if (attribute == null) {
+			return null;
+		}
+		return unescape(s.substring(attribute.valueStart, attribute.valueEnd));
+	}
+
+	private static Attribute findAttribute(String s, Tag tag, String name) {
+		int i = tag.attributesStart;
+		int end = tag.end - 1;
+		while (i < end) {
+			i = skipForward(s, i, " \t\r\n");
+			int nameStart = i;
+			while (i < end && !isNameEnd(s.charAt(i)) && s.charAt(i) != '=') {
+				i++;
+			}
+			if (i == nameStart) {
+				// '/' of an empty element
+				i++;
+				continue;
+			}
+			String attributeName = s.substring(nameStart, i);
+			i = skipForward(s, i, " \t\r\n");
+			if (i >= end || s.charAt(i) != '=') {
+				continue;
+			}
+			i = skipForward(s, i + 1, " \t\r\n");
+			char quote = s.charAt(i);
+			if (quote != '"' && quote != '\'') {
+				continue;
+			}
+			int valueEnd = s.indexOf(quote, i + 1);
+			if (valueEnd == -1 || valueEnd > end) {
+				return null;
+			}
+			if (attributeName.equals(name)) {
+				Attribute attribute = new Attribute();
+				attribute.valueStart = i + 1;
+				attribute.valueEnd = valueEnd;
+				return attribute;
+			}
+			i = valueEnd + 1;
+		}
+		return null;
+	}
+
+	private static boolean isNameEnd(char c) {
+		return Character.isWhitespace(c) || c == '>' || c == '/';
+	}
+
+	private static int skipForward(String s, int from, String chars) {
+		int i = from;
+		while (i < s.length() && chars.indexOf(s.charAt(i)) != -1) {
+			i++;
+		}
+		return i;
+	}
+
+	private static int skipBackward(String s, int from, String chars) {
+		int i = from;
+		while (i > 0 && chars.indexOf(s.charAt(i - 1)) != -1) {
+			i--;
+		}
+		return i;
+	}
+
+	static String escape(String value, char quote) {
+		StringBuffer result = new StringBuffer(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '&') {
+				result.append("&amp;");
+			} else if (c == '<') {
+				result.append("&lt;");
+			} else if (c == quote) {
+				result.append(c == '"' ? "&quot;" : "&apos;");
+			} else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+	static String unescape(String value) {
+		if (value.indexOf('&') == -1) {
+			return value;
+		}
+		return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+				.replace("&apos;", "'").replace("&amp;", "&");
+	}
+
+	private static class Tag {
+		int start;
+		int end;
+		int attributesStart;
+		String name;
+		boolean closing;
+		boolean selfClosing;
+	}
+
+	private static class Attribute {
+		int valueStart;
+		int valueEnd;
+	}
+}
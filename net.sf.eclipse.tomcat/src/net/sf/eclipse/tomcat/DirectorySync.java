@@ -0,0 +1,287 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Mirror a directory into another one, for an exploded deploy.
+ *
+ * Only the difference is applied : a file with the same size and modification time
+ * in both directories is left as is, a file with the same size and content is only
+ * given the time of its source, other files are copied, and files or directories
+ * which are not in the source any more are deleted.
+ *
+ * With hard links, files of the target are links to the source files instead of
+ * copies, when the file system supports them. Nothing is copied then, but a file
+ * modified in place in the target is modified in the source too.
+ *
+ * A file is replaced by renaming a temporary file, so Tomcat never reads it half written.
+ */
+public class DirectorySync {
+
+	private final File source;
+	private final File target;
+	private final ExcludeRules excludeRules = new ExcludeRules();
+	private boolean hardLinks;
+	/** false once creating a link failed, files are copied then */
+	private boolean linksSupported;
+
+	private int copiedCount;
+	private int linkedCount;
+	private int unchangedCount;
+	private int deletedCount;
+	private long copiedSize;
+	private long duration;
+
+	/**
+	 * A directory or file found in the source or target
+	 */
+	private static class Item {
+		final boolean directory;
+		final long size;
+		final long time;
+
+		Item(boolean directory, long size, long time) {
+			this.directory = directory;
+			this.size = size;
+			this.time = time;
+		}
+	}
+
+	public DirectorySync(File source, File target) {
+		this.source = source.getAbsoluteFile();
+		this.target = target.getAbsoluteFile();
+	}
+
+	/**
+	 * Source files matching these rules are not mirrored, and deleted from the target
+	 */
+	public ExcludeRules getExcludeRules() {
+		return excludeRules;
+	}
+
+	/**
+	 * @param hardLinks true to link target files to the source files instead of copying them
+	 */
+	public void setHardLinks(boolean hardLinks) {
+		this.hardLinks = hardLinks;
+	}
+
+	public boolean isHardLinks() {
+		return hardLinks;
+	}
+
+	public void sync() throws IOException {
+		sync(new NullProgressMonitor());
+	}
+
+	/**
+	 * Mirror source into target, reporting progress to monitor. If monitor is canceled,
+	 * OperationCanceledException is thrown, files already updated stay updated.
+	 */
+	public void sync(IProgressMonitor monitor) throws IOException {
+		long start = System.currentTimeMillis();
+		copiedCount = 0;
+		linkedCount = 0;
+		unchangedCount = 0;
+		deletedCount = 0;
+		copiedSize = 0;
+		linksSupported = hardLinks;
+
+		Map<String, Item> sourceItems = scan(source, true);
+		Map<String, Item> targetItems = target.isDirectory() ? scan(target, false) : new LinkedHashMap<String, Item>();
+		if (!target.isDirectory() && !target.mkdirs()) {
+			throw new IOException("Unable to create " + target);
+		}
+
+		monitor.beginTask(target.getName(), sourceItems.size() + 1);
+		try {
+			deleteRemoved(sourceItems, targetItems);
+			monitor.worked(1);
+			for (Map.Entry<String, Item> entry : sourceItems.entrySet()) {
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				update(entry.getKey(), entry.getValue(), targetItems.get(entry.getKey()));
+				monitor.worked(1);
+			}
+		} finally {
+			monitor.done();
+		}
+		duration = System.currentTimeMillis() - start;
+	}
+
+	/**
+	 * @return number of files copied by the last sync
+	 */
+	public int getCopiedCount() {
+		return copiedCount;
+	}
+
+	/**
+	 * @return number of files linked to their source by the last sync
+	 */
+	public int getLinkedCount() {
+		return linkedCount;
+	}
+
+	/**
+	 * @return number of files left as they were by the last sync
+	 */
+	public int getUnchangedCount() {
+		return unchangedCount;
+	}
+
+	/**
+	 * @return number of files and directories deleted by the last sync
+	 */
+	public int getDeletedCount() {
+		return deletedCount;
+	}
+
+	/**
+	 * @return duration of the last sync in milliseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return a one line summary of the last sync
+	 */
+	public String getSummary() {
+		return String.format(Locale.ENGLISH, "%s : %d files (%d copied, %d linked, %d unchanged), %d deleted, %.1f MB copied in %d ms",
+				target.getPath(), copiedCount + linkedCount + unchangedCount, copiedCount, linkedCount, unchangedCount,
+				deletedCount, copiedSize / (1024.0 * 1024.0), duration);
+	}
+
+	/**
+	 * @return directories and files of root by path, a directory before its content
+	 */
+	private Map<String, Item> scan(final File root, final boolean filtered) throws IOException {
+		final Map<String, Item> items = new LinkedHashMap<String, Item>();
+		final int rootLength = root.getPath().length() + 1;
+		FileTreeWalker.getDefault().walk(root, new FileTreeWalker.Visitor() {
+			public boolean visitDirectory(File dir, long time) {
+				String path = toPath(dir, rootLength);
+				if (filtered && (excludeRules.isExcluded(path, true) || dir.equals(target))) {
+					return false;
+				}
+				items.put(path, new Item(true, 0, time));
+				return true;
+			}
+
+			public void visitFile(File file, long size, long time) {
+				String path = toPath(file, rootLength);
+				if (!filtered || !excludeRules.isExcluded(path, false)) {
+					items.put(path, new Item(false, size, time));
+				}
+			}
+		});
+		return items;
+	}
+
+	private static String toPath(File file, int rootLength) {
+		return file.getPath().substring(rootLength).replace('\\', '/');
+	}
+
+	/**
+	 * Delete what is not in the source any more, or is not of the same kind,
+	 * the content of a directory before the directory
+	 */
+	private void deleteRemoved(Map<String, Item> sourceItems, Map<String, Item> targetItems) throws IOException {
+		List<String> paths = new ArrayList<String>(targetItems.keySet());
+		Collections.reverse(paths);
+		for (String path : paths) {
+			Item sourceItem = sourceItems.get(path);
+			Item targetItem = targetItems.get(path);
+			if (sourceItem == null || sourceItem.directory != targetItem.directory) {
+				File file = new File(target, path);
+				if (!file.delete() && file.exists()) {
+					throw new IOException("Unable to delete " + file);
+				}
+				targetItems.remove(path);
+				deletedCount++;
+			}
+		}
+	}
+
+	private void update(String path, Item sourceItem, Item targetItem) throws IOException {
+		File to = new File(target, path);
+		if (sourceItem.directory) {
+			if (targetItem == null && !to.mkdir() && !to.isDirectory()) {
+				throw new IOException("Unable to create " + to);
+			}
+			return;
+		}
+
+		File from = new File(source, path);
+		if (targetItem != null && targetItem.size == sourceItem.size) {
+			if (targetItem.time == sourceItem.time) {
+				unchangedCount++;
+				return;
+			}
+			// touched but not modified, as after a clean build
+			if (!hardLinks && FileUtil.sha256(from).equals(FileUtil.sha256(to))) {
+				to.setLastModified(sourceItem.time);
+				unchangedCount++;
+				return;
+			}
+		}
+		replace(from, to, sourceItem.time);
+	}
+
+	/**
+	 * Replace to by a link to from or a copy of it
+	 */
+	private void replace(File from, File to, long time) throws IOException {
+		File tmp = File.createTempFile("." + to.getName() + "-", ".tmp", to.getParentFile());
+		try {
+			if (linksSupported) {
+				tmp.delete();
+				linksSupported = FileUtil.createLink(tmp, from);
+			}
+			if (linksSupported) {
+				linkedCount++;
+			} else {
+				FileUtil.copyFile(from, tmp);
+				tmp.setLastModified(time);
+				copiedCount++;
+				copiedSize += from.length();
+			}
+			FileUtil.rename(tmp, to);
+		} finally {
+			if (tmp.exists()) {
+				tmp.delete();
+			}
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.StringTokenizer;
+import java.util.regex.Pattern;
+
+/**
+ * Rules excluding files and directories from an export, compiled once.
+ *
+ * A rule uses the syntax of .gitignore files, without negation :
+ * <ul>
+ * <li>a rule ending with '/' only matches directories</li>
+ * <li>a rule without '/' matches the name of a file or directory at any depth,
+ * otherwise it matches the path relative to the exported directory</li>
+ * <li>'*' matches anything except '/', '?' one character except '/',
+ * '**' anything including '/'</li>
+ * <li>a line starting with '#' is a comment</li>
+ * </ul>
+ * An excluded directory is excluded with all its content, without being visited.
+ */
+public class ExcludeRules {
+
+	/** name of the file listing rules of a project */
+	public static final String IGNORE_FILENAME = ".warignore";
+
+	private final Set<String> fileNames = new HashSet<String>();
+	private final Set<String> directoryNames = new HashSet<String>();
+	private final List<Rule> rules = new ArrayList<Rule>();
+
+	private static class Rule {
+		final Pattern pattern;
+		final boolean directoryOnly;
+		/** match the name only, not the whole path */
+		final boolean matchName;
+
+		Rule(Pattern pattern, boolean directoryOnly, boolean matchName) {
+			this.pattern = pattern;
+			this.directoryOnly = directoryOnly;
+			this.matchName = matchName;
+		}
+	}
+
+	/**
+	 * Add a rule, see class comment for the syntax
+	 */
+	public ExcludeRules add(String rule) {
+		rule = rule.trim();
+		if (rule.length() == 0 || rule.startsWith("#")) {
+			return this;
+		}
+		boolean directoryOnly = rule.endsWith("/");
+		if (directoryOnly) {
+			rule = rule.substring(0, rule.length() - 1);
+		}
+		boolean matchName = rule.indexOf('/') == -1;
+		if (rule.startsWith("/")) {
+			rule = rule.substring(1);
+		}
+		if (rule.length() == 0) {
+			return this;
+		}
+
+		if (matchName && !hasWildcard(rule)) {
+			// most rules are plain names, a lookup is enough
+			directoryNames.add(rule);
+			if (!directoryOnly) {
+				fileNames.add(rule);
+			}
+		} else {
+			rules.add(new Rule(toPattern(rule), directoryOnly, matchName));
+		}
+		return this;
+	}
+
+	/**
+	 * Exclude directories with these names
+	 * @param list names separated by ';'
+	 */
+	public ExcludeRules addDirectoryNames(String list) {
+		StringTokenizer tokenizer = new StringTokenizer(list, ";");
+		while (tokenizer.hasMoreTokens()) {
+			add(tokenizer.nextToken().trim() + "/");
+		}
+		return this;
+	}
+
+	/**
+	 * Exclude files with these names
+	 * @param list names separated by ';'
+	 */
+	public ExcludeRules addFileNames(String list) {
+		StringTokenizer tokenizer = new StringTokenizer(list, ";");
+		while (tokenizer.hasMoreTokens()) {
+			String name = tokenizer.nextToken().trim();
+			if (name.length() > 0) {
+				fileNames.add(name);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Add the rules of a .warignore file, one per line. Nothing is added if file does not exist
+	 */
+	public ExcludeRules addFile(File file) throws IOException {
+		if (file.isFile()) {
+			StringTokenizer lines = new StringTokenizer(FileUtil.readTextFile(file), "\n");
+			while (lines.hasMoreTokens()) {
+				add(lines.nextToken());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * @param path path relative to the exported directory, separated by '/'
+	 * @param directory true if path is a directory
+	 */
+	public boolean isExcluded(String path, boolean directory) {
+		String name = path.substring(path.lastIndexOf('/') + 1);
+		if ((directory ? directoryNames : fileNames).contains(name)) {
+			return true;
+		}
+		for (Rule rule : rules) {
+			if ((directory || !rule.directoryOnly)
+					&& rule.pattern.matcher(rule.matchName ? name : path).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasWildcard(String rule) {
+		return rule.indexOf('*') != -1 || rule.indexOf('?') != -1;
+	}
+
+	/**
+	 * Compile a glob to a regular expression
+	 */
+	static Pattern toPattern(String glob) {
+		StringBuffer regex = new StringBuffer();
+		int length = glob.length();
+		for (int i = 0; i < length; i++) {
+			char c = glob.charAt(i);
+			if (c == '*' && i + 1 < length && glob.charAt(i + 1) == '*') {
+				i++;
+				if (i + 1 < length && glob.charAt(i + 1) == '/') {
+					// "**/" also matches no directory at all
+					i++;
+					regex.append("(?:.*/)?");
+				} else {
+					regex.append(".*");
+				}
+			} else if (c == '*') {
+				regex.append("[^/]*");
+			} else if (c == '?') {
+				regex.append("[^/]");
+			} else if ("\\.[]{}()+-^$|".indexOf(c) != -1) {
+				regex.append('\\').append(c);
+			} else {
+				regex.append(c);
+			}
+		}
+		return Pattern.compile(regex.toString());
+	}
+}
@@ -0,0 +1,193 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Walk a directory tree, reading the attributes of each file only once.
+ *
+ * On Java 7 or later, java.nio.file.Files.walkFileTree is used through reflection,
+ * since the plugin must run on Java 5 : a single stat gives the kind, size and time
+ * of a file. Otherwise File.listFiles is used, with one call per attribute.
+ *
+ * Symbolic links are followed, a link to one of its parents is visited once.
+ */
+abstract class FileTreeWalker {
+
+	/**
+	 * Receive the directories and regular files of a tree, the root excluded
+	 */
+	interface Visitor {
+		/**
+		 * @return false to skip the content of dir
+		 */
+		boolean visitDirectory(File dir, long time);
+
+		void visitFile(File file, long size, long time);
+	}
+
+	private static final FileTreeWalker DEFAULT = createDefault();
+
+	/**
+	 * @return the fastest walker available on this Java version
+	 */
+	static FileTreeWalker getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Visit the content of root, directories before their content
+	 */
+	abstract void walk(File root, Visitor visitor) throws IOException;
+
+	private static FileTreeWalker createDefault() {
+		try {
+			return new NioWalker();
+		} catch (Exception e) {
+			// Java 5 or 6
+			return new IoWalker();
+		}
+	}
+
+	/**
+	 * Walker using File.listFiles, available on any Java version
+	 */
+	static class IoWalker extends FileTreeWalker {
+
+		@Override
+		void walk(File root, Visitor visitor) {
+			File[] children = root.listFiles();
+			if (children == null) {
+				return;
+			}
+			for (int i = 0; i < children.length; i++) {
+				File child = children[i];
+				if (child.isDirectory()) {
+					if (visitor.visitDirectory(child, child.lastModified())) {
+						walk(child, visitor);
+					}
+				} else {
+					// 0 if child does not exist anymore, or is a broken link
+					long time = child.lastModified();
+					if (time != 0) {
+						visitor.visitFile(child, child.length(), time);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Walker using Files.walkFileTree, with a Proxy implementing FileVisitor
+	 */
+	static class NioWalker extends FileTreeWalker {
+
+		private final Method walkFileTree;
+		private final Method toPath;
+		private final Method toFile;
+		private final Method isRegularFile;
+		private final Method size;
+		private final Method lastModifiedTime;
+		private final Method toMillis;
+		private final Class<?> visitorClass;
+		private final Object followLinks;
+		private final Object continueResult;
+		private final Object skipSubtreeResult;
+
+		NioWalker() throws Exception {
+			Class<?> pathClass = Class.forName("java.nio.file.Path");
+			Class<?> attributesClass = Class.forName("java.nio.file.attribute.BasicFileAttributes");
+			Class<?> resultClass = Class.forName("java.nio.file.FileVisitResult");
+			Class<?> optionClass = Class.forName("java.nio.file.FileVisitOption");
+			visitorClass = Class.forName("java.nio.file.FileVisitor");
+			walkFileTree = Class.forName("java.nio.file.Files").getMethod("walkFileTree", pathClass, Set.class, int.class, visitorClass);
+			toPath = File.class.getMethod("toPath");
+			toFile = pathClass.getMethod("toFile");
+			isRegularFile = attributesClass.getMethod("isRegularFile");
+			size = attributesClass.getMethod("size");
+			lastModifiedTime = attributesClass.getMethod("lastModifiedTime");
+			toMillis = Class.forName("java.nio.file.attribute.FileTime").getMethod("toMillis");
+			followLinks = Collections.singleton(optionClass.getField("FOLLOW_LINKS").get(null));
+			continueResult = resultClass.getField("CONTINUE").get(null);
+			skipSubtreeResult = resultClass.getField("SKIP_SUBTREE").get(null);
+		}
+
+		@Override
+		void walk(final File root, final Visitor visitor) throws IOException {
+			InvocationHandler handler = new InvocationHandler() {
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					String name = method.getName();
+					if (method.getDeclaringClass() == Object.class) {
+						if (name.equals("equals")) {
+							return Boolean.valueOf(proxy == args[0]);
+						} else if (name.equals("hashCode")) {
+							return Integer.valueOf(System.identityHashCode(proxy));
+						}
+						return "FileTreeWalker visitor";
+					}
+
+					if (name.equals("preVisitDirectory")) {
+						File dir = (File) toFile.invoke(args[0]);
+						if (dir.equals(root)) {
+							return continueResult;
+						}
+						return visitor.visitDirectory(dir, getTime(args[1])) ? continueResult : skipSubtreeResult;
+					} else if (name.equals("visitFile")) {
+						Object attributes = args[1];
+						if (((Boolean) isRegularFile.invoke(attributes)).booleanValue()) {
+							visitor.visitFile((File) toFile.invoke(args[0]),
+									((Long) size.invoke(attributes)).longValue(), getTime(attributes));
+						}
+					}
+					// visitFileFailed : unreadable file, broken link or loop, skipped as File.listFiles does
+					return continueResult;
+				}
+			};
+			Object fileVisitor = Proxy.newProxyInstance(visitorClass.getClassLoader(), new Class<?>[] { visitorClass }, handler);
+
+			try {
+				walkFileTree.invoke(null, toPath.invoke(root), followLinks, Integer.valueOf(Integer.MAX_VALUE), fileVisitor);
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof IOException) {
+					throw (IOException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new IOException("Walking " + root + " failed: " + cause);
+			} catch (IllegalAccessException e) {
+				throw new IOException("Walking " + root + " failed: " + e);
+			}
+		}
+
+		private long getTime(Object attributes) throws Exception {
+			return ((Long) toMillis.invoke(lastModifiedTime.invoke(attributes))).longValue();
+		}
+	}
+}
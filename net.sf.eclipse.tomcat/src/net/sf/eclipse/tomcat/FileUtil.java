@@ -20,13 +20,29 @@
 package net.sf.eclipse.tomcat;
  
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 
 /**
  * Utility class for Files operation
@@ -35,6 +51,9 @@ import java.io.InputStreamReader;
  */
 public class FileUtil {
 
+	/** number of files deleted between two checks of the monitor */
+	private static final int DELETE_SLICE = 100;
+
 	public static String readTextFile(File f) throws IOException {
 		
 		StringBuffer buf = new StringBuffer();
@@ -50,10 +69,200 @@ public class FileUtil {
 		return buf.toString();
 	}
 	
-	public static void toTextFile(File f, String content) throws IOException {
-		FileOutputStream out = new FileOutputStream(f);
-		out.write(content.getBytes("UTF-8"));
-		out.close(); 		
+	/**
+	 * Write a text file, see {@link #toFile(File, byte[])}
+	 * @return false if the file already had this content
+	 */
+	public static boolean toTextFile(File f, String content) throws IOException {
+		return toFile(f, content.getBytes("UTF-8"));
+	}
+
+	/**
+	 * Replace the content of a file in one step : content is written and synced to
+	 * a temporary file in the same directory, which is then renamed. If Eclipse dies
+	 * while writing, the file keeps its previous content.
+	 *
+	 * Nothing is written if the file already has this content, so Tomcat does
+	 * not see a modified file and does not redeploy the context.
+	 *
+	 * When f is a symbolic link, the file it links to is replaced and the link
+	 * is kept. The permissions of the replaced file are kept as well.
+	 *
+	 * @return false if the file already had this content
+	 */
+	public static boolean toFile(File f, byte[] content) throws IOException {
+		if (hasContent(f, content)) {
+			return false;
+		}
+
+		File target = f.getCanonicalFile();
+		File tmp = File.createTempFile("." + target.getName() + "-", ".tmp", target.getParentFile());
+		try {
+			FileOutputStream out = new FileOutputStream(tmp);
+			try {
+				out.write(content);
+				out.getChannel().force(true);
+			} finally {
+				out.close();
+			}
+			if (target.exists()) {
+				copyPermissions(target, tmp);
+			}
+			rename(tmp, target);
+		} finally {
+			if (tmp.exists()) {
+				tmp.delete();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Rename source to target, replacing target if it exists.
+	 * java.nio.file atomic move is used when running on Java 7 or later.
+	 */
+	static void rename(File source, File target) throws IOException {
+		if (atomicMove(source, target) || source.renameTo(target)) {
+			return;
+		}
+		// renameTo does not replace an existing file on Windows
+		if (!target.delete() || !source.renameTo(target)) {
+			throw new IOException("Unable to replace " + target.getAbsolutePath());
+		}
+	}
+
+	/**
+	 * Files.move(source, target, ATOMIC_MOVE, REPLACE_EXISTING), called
+	 * through reflection since the plugin must run on Java 5
+	 * @return false if not available or not supported by the file system
+	 */
+	private static boolean atomicMove(File source, File target) {
+		try {
+			Class<?> pathClass = Class.forName("java.nio.file.Path");
+			Class<?> copyOptionClass = Class.forName("java.nio.file.CopyOption");
+			Class<?> standardCopyOptionClass = Class.forName("java.nio.file.StandardCopyOption");
+			Method toPath = File.class.getMethod("toPath");
+
+			Object options = Array.newInstance(copyOptionClass, 2);
+			Array.set(options, 0, standardCopyOptionClass.getField("ATOMIC_MOVE").get(null));
+			Array.set(options, 1, standardCopyOptionClass.getField("REPLACE_EXISTING").get(null));
+
+			Method move = Class.forName("java.nio.file.Files").getMethod("move", pathClass, pathClass, options.getClass());
+			move.invoke(null, toPath.invoke(source), toPath.invoke(target), options);
+			return true;
+		} catch (InvocationTargetException e) {
+			// AtomicMoveNotSupportedException or I/O error, fall back to renameTo
+			return false;
+		} catch (Exception e) {
+			// Java 5 or 6
+			return false;
+		}
+	}
+
+	/**
+	 * Give target the POSIX permissions of source, through reflection since
+	 * the plugin must run on Java 5. Nothing is done on other file systems.
+	 */
+	private static void copyPermissions(File source, File target) {
+		try {
+			Class<?> pathClass = Class.forName("java.nio.file.Path");
+			Class<?> linkOptionClass = Class.forName("java.nio.file.LinkOption");
+			Method toPath = File.class.getMethod("toPath");
+			Object options = Array.newInstance(linkOptionClass, 0);
+			Class<?> files = Class.forName("java.nio.file.Files");
+
+			Method getAttribute = files.getMethod("getAttribute", pathClass, String.class, options.getClass());
+			Method setAttribute = files.getMethod("setAttribute", pathClass, String.class, Object.class, options.getClass());
+			Object permissions = getAttribute.invoke(null, toPath.invoke(source), "posix:permissions", options);
+			setAttribute.invoke(null, toPath.invoke(target), "posix:permissions", permissions, options);
+		} catch (InvocationTargetException e) {
+			// not a POSIX file system, or I/O error : the file keeps default permissions
+		} catch (Exception e) {
+			// Java 5 or 6
+		}
+	}
+
+	/**
+	 * Files.createLink(link, existing), called through reflection since the
+	 * plugin must run on Java 5
+	 * @return false if not available or not supported by the file system
+	 */
+	static boolean createLink(File link, File existing) {
+		try {
+			Class<?> pathClass = Class.forName("java.nio.file.Path");
+			Method toPath = File.class.getMethod("toPath");
+			Method createLink = Class.forName("java.nio.file.Files").getMethod("createLink", pathClass, pathClass);
+			createLink.invoke(null, toPath.invoke(link), toPath.invoke(existing));
+			return true;
+		} catch (InvocationTargetException e) {
+			// UnsupportedOperationException, other file system or I/O error
+			return false;
+		} catch (Exception e) {
+			// Java 5 or 6
+			return false;
+		}
+	}
+
+	/**
+	 * return true if the file exists and contains exactly these bytes
+	 */
+	public static boolean hasContent(File f, byte[] content) throws IOException {
+		if (!f.isFile() || f.length() != content.length) {
+			return false;
+		}
+
+		byte[] buf = new byte[8192];
+		BufferedInputStream in = new BufferedInputStream(new FileInputStream(f));
+		try {
+			int offset = 0;
+			int n;
+			while ((n = in.read(buf)) >= 0) {
+				if (offset + n > content.length) {
+					return false;
+				}
+				for (int i = 0; i < n; i++) {
+					if (buf[i] != content[offset + i]) {
+						return false;
+					}
+				}
+				offset += n;
+			}
+			return offset == content.length;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return SHA-256 digest of the content of f, in hexadecimal
+	 */
+	public static String sha256(File f) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e.toString());
+		}
+
+		byte[] buf = new byte[64 * 1024];
+		FileInputStream in = new FileInputStream(f);
+		try {
+			int n;
+			while ((n = in.read(buf)) >= 0) {
+				digest.update(buf, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+
+		StringBuffer result = new StringBuffer();
+		byte[] hash = digest.digest();
+		for (int i = 0; i < hash.length; i++) {
+			result.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+			result.append(Character.forDigit(hash[i] & 0xf, 16));
+		}
+		return result.toString();
 	}
 
 	public static void copy(String inputFilename, String outputFilename) throws IOException {
@@ -72,34 +281,125 @@ public class FileUtil {
 	}
 	
 	/**
-	 * Copie un fichier vers un autre
-	 */	
+	 * Copie un fichier vers un autre, en conservant sa date de modification
+	 * et ses permissions POSIX
+	 *
+	 * Data is transferred by the file system with FileChannel.transferTo,
+	 * without going through a buffer of the Java heap.
+	 */
 	public static void copyFile(File inputFile, File outputFile) throws IOException {
-		BufferedInputStream fr = new BufferedInputStream(new FileInputStream(inputFile));
-		BufferedOutputStream fw = new BufferedOutputStream(new FileOutputStream(outputFile));
-		byte[] buf = new byte[8192];
-		int n;
-		while((n = fr.read(buf)) >= 0)
-			fw.write(buf,0,n);
-		fr.close();
-		fw.close();
-    }
-
-	/**
-	 * Copie un rpertoire dans un autre
-	 */    
-    public static void copyDir(File inputDir, File outputDir) throws IOException {
-     	File[] files = inputDir.listFiles();
-    	for(int i=0; i<files.length; i++) {
-    		File destFile = new File(outputDir.getAbsolutePath() + File.separator + files[i].getName());
-    		if(!destFile.exists()) {
-				if(files[i].isDirectory()) {
-		    		destFile.mkdir();
+		FileInputStream in = new FileInputStream(inputFile);
+		try {
+			FileOutputStream out = new FileOutputStream(outputFile);
+			try {
+				FileChannel source = in.getChannel();
+				FileChannel target = out.getChannel();
+				long size = source.size();
+				long position = 0;
+				while (position < size) {
+					long n = source.transferTo(position, size - position, target);
+					if (n <= 0) {
+						// truncated while copied
+						break;
+					}
+					position += n;
 				}
-    		}
-    		FileUtil.copy(files[i], destFile);	
-    	}
-    }
+			} finally {
+				out.close();
+			}
+		} finally {
+			in.close();
+		}
+		copyPermissions(inputFile, outputFile);
+		outputFile.setLastModified(inputFile.lastModified());
+	}
+
+	/**
+	 * Copy the content of a directory into another one, with a thread per processor
+	 */
+	public static void copyDir(File inputDir, File outputDir) throws IOException {
+		copyDir(inputDir, outputDir, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Copy the content of inputDir into outputDir, files being copied concurrently
+	 * by threads. Directories are created first, and given the modification time
+	 * of their source once their content is copied.
+	 */
+	public static void copyDir(File inputDir, File outputDir, int threads) throws IOException {
+		final File input = inputDir.getAbsoluteFile();
+		final File output = outputDir.getAbsoluteFile();
+		final int inputLength = input.getPath().length() + 1;
+		final List<File> dirs = new ArrayList<File>();
+		final List<File> files = new ArrayList<File>();
+		FileTreeWalker.getDefault().walk(input, new FileTreeWalker.Visitor() {
+			public boolean visitDirectory(File dir, long time) {
+				dirs.add(dir);
+				return true;
+			}
+
+			public void visitFile(File file, long size, long time) {
+				files.add(file);
+			}
+		});
+
+		for (File dir : dirs) {
+			File target = new File(output, dir.getPath().substring(inputLength));
+			if (!target.isDirectory() && !target.mkdirs()) {
+				throw new IOException("Unable to create " + target);
+			}
+		}
+
+		if (threads <= 1 || files.size() <= 1) {
+			for (File file : files) {
+				copyFile(file, new File(output, file.getPath().substring(inputLength)));
+			}
+		} else {
+			copyFiles(files, input, output, threads);
+		}
+
+		// content before its directory, copying a file changes the time of its directory
+		for (int i = dirs.size() - 1; i >= 0; i--) {
+			File dir = dirs.get(i);
+			new File(output, dir.getPath().substring(inputLength)).setLastModified(dir.lastModified());
+		}
+	}
+
+	private static void copyFiles(List<File> files, File input, final File output, int threads) throws IOException {
+		final int inputLength = input.getPath().length() + 1;
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+		try {
+			List<Future<Object>> copies = new ArrayList<Future<Object>>(files.size());
+			for (final File file : files) {
+				copies.add(executor.submit(new Callable<Object>() {
+					public Object call() throws IOException {
+						copyFile(file, new File(output, file.getPath().substring(inputLength)));
+						return null;
+					}
+				}));
+			}
+			for (Future<Object> copy : copies) {
+				try {
+					copy.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while copying " + input);
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof IOException) {
+						throw (IOException) cause;
+					} else if (cause instanceof RuntimeException) {
+						throw (RuntimeException) cause;
+					} else if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					throw new IOException("Copy of " + input + " failed: " + cause);
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
     
 
 	/**
@@ -127,6 +427,117 @@ public class FileUtil {
 		return content.substring(startTagIdx + property.length() + 2, endTagIdx);	
 	}
 	
+	/**
+	 * Delete the content of a directory, files being deleted concurrently by threads,
+	 * the directory itself is kept. The monitor is checked between slices of files,
+	 * if it is canceled the files already deleted stay deleted.
+	 *
+	 * @return number of files deleted
+	 * @throws IOException if a file or directory could not be deleted, once all others are
+	 * @throws OperationCanceledException if monitor is canceled
+	 */
+	public static int removeContent(File dir, int threads, IProgressMonitor monitor) throws IOException {
+		final List<File> dirs = new ArrayList<File>();
+		final List<File> files = new ArrayList<File>();
+		FileTreeWalker.getDefault().walk(dir, new FileTreeWalker.Visitor() {
+			public boolean visitDirectory(File subDir, long time) {
+				dirs.add(subDir);
+				return true;
+			}
+
+			public void visitFile(File file, long size, long time) {
+				files.add(file);
+			}
+		});
+
+		List<List<File>> slices = new ArrayList<List<File>>();
+		for (int i = 0; i < files.size(); i += DELETE_SLICE) {
+			slices.add(files.subList(i, Math.min(files.size(), i + DELETE_SLICE)));
+		}
+
+		List<File> failed = new ArrayList<File>();
+		monitor.beginTask(dir.getName(), slices.size() + 1);
+		try {
+			int poolSize = Math.min(threads, slices.size());
+			if (poolSize <= 1) {
+				for (List<File> slice : slices) {
+					checkCanceled(monitor);
+					deleteFiles(slice, failed);
+					monitor.worked(1);
+				}
+			} else {
+				deleteFiles(slices, poolSize, failed, monitor);
+			}
+			checkCanceled(monitor);
+
+			// content before its directory
+			for (int i = dirs.size() - 1; i >= 0; i--) {
+				File subDir = dirs.get(i);
+				if (!subDir.delete() && subDir.exists()) {
+					failed.add(subDir);
+				}
+			}
+			monitor.worked(1);
+		} finally {
+			monitor.done();
+		}
+		int deleted = files.size() - failed.size();
+		if (!failed.isEmpty()) {
+			throw new IOException("Unable to delete " + failed.size() + " files or directories, including " + failed.get(0));
+		}
+		return deleted;
+	}
+
+	private static void deleteFiles(List<File> files, List<File> failed) {
+		for (File file : files) {
+			if (!file.delete() && file.exists()) {
+				failed.add(file);
+			}
+		}
+	}
+
+	/**
+	 * Delete slices of files on threads, the slices not started yet when monitor
+	 * is canceled are skipped
+	 */
+	private static void deleteFiles(List<List<File>> slices, int threads, List<File> failed,
+			final IProgressMonitor monitor) throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<List<File>>> deletes = new ArrayList<Future<List<File>>>(slices.size());
+			for (final List<File> slice : slices) {
+				deletes.add(executor.submit(new Callable<List<File>>() {
+					public List<File> call() {
+						List<File> sliceFailed = new ArrayList<File>();
+						if (!monitor.isCanceled()) {
+							deleteFiles(slice, sliceFailed);
+						}
+						return sliceFailed;
+					}
+				}));
+			}
+			for (Future<List<File>> delete : deletes) {
+				try {
+					failed.addAll(delete.get());
+					monitor.worked(1);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Interrupted while deleting files");
+				} catch (ExecutionException e) {
+					throw new IOException("Delete failed: " + e.getCause());
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void checkCanceled(IProgressMonitor monitor) {
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+	}
+
 	/**
 	 * Recursive delete of a directory.<br>
 	 * The directory itself will be deleted
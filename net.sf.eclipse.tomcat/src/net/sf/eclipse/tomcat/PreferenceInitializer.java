@@ -28,6 +28,7 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 	public void initializeDefaultPreferences() {
 		IPreferenceStore prefStore = TomcatLauncherPlugin.getDefault().getPreferenceStore();
 		prefStore.setDefault(TomcatLauncherPlugin.TOMCAT_PREF_CONFMODE_KEY, TomcatLauncherPlugin.CONTEXTFILES_MODE);
+		prefStore.setDefault(TomcatLauncherPlugin.TOMCAT_PREF_SHUTDOWN_TIMEOUT_KEY, 30);
 	}
 
 }
@@ -42,19 +42,7 @@ public class StringUtil {
 	 * part2 is appended to part1
 	 */
 	public static String[] concatUniq(String[] part1, String[] part2) {
-		ArrayList nlist = new ArrayList();
-
-		for (int i = 0; i < part1.length; i++) {
-			if (! nlist.contains(part1[i]))
-				nlist.add(part1[i]);
-		}
-        
-		for (int i = 0; i < part2.length; i++) {
-			if (! nlist.contains(part2[i]))
-				nlist.add(part2[i]);
-		}
-        
-		return (String[])nlist.toArray(new String[0]);      
+		return new ClassPathBuilder(part1).addAll(part2).toArray();
 	}
 
 
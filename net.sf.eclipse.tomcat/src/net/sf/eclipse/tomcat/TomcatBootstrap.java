@@ -19,23 +19,37 @@
 package net.sf.eclipse.tomcat;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.debug.core.ILaunch;
 import org.eclipse.jdt.core.IClasspathContainer;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
@@ -54,6 +68,11 @@ public abstract class TomcatBootstrap {
   private static final int RUN = 1;
   private static final int LOG = 2;
   private static final int ADD_LAUNCH = 3;
+  private static final long SHUTDOWN_POLL_INTERVAL = 100;
+  /** ms to wait for a terminated launch to be really gone */
+  private static final long TERMINATE_TIMEOUT = 5000;
+  private static final Pattern COMMENT_PATTERN = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+  private static final Pattern PORT_PATTERN = Pattern.compile("<Connector\\s[^>]*?\\bport\\s*=\\s*\"(-?\\d+)\"");
 
   private final String label;
 
@@ -109,7 +128,9 @@ public abstract class TomcatBootstrap {
    * See %TOMCAT_HOME%/bin/startup.bat
    */
   public void start() throws CoreException {
+    long startTime = System.currentTimeMillis();
     this.runTomcatBootstrap(getStartCommand(), true, RUN, false);
+    TomcatLauncherPlugin.getDefault().getStartupMonitor().watch(VMLauncherUtility.ILAUNCH, startTime);
   }
 
   /**
@@ -120,19 +141,121 @@ public abstract class TomcatBootstrap {
   }
 
   /**
-   * Simply stop and start
+   * Stop, wait until Tomcat is really stopped and start.
+   * May wait for the shutdown timeout, do not call it from the UI thread
+   * @throws OperationCanceledException if monitor is canceled while waiting, Tomcat is then not started
    */
-  public void restart() throws CoreException {
+  public void restart(IProgressMonitor monitor) throws CoreException {
+    // stop() launches the shutdown command, which replaces VMLauncherUtility.ILAUNCH
+    ILaunch server = VMLauncherUtility.ILAUNCH;
     this.stop();
+    waitForShutdown(server, monitor);
+    this.start();
+  }
+
+  /**
+   * Wait at most the shutdown timeout set in preferences for Tomcat to stop.
+   * When Tomcat was launched from this workbench its launch is watched, and killed
+   * if it is still running after the timeout. Otherwise wait until nothing
+   * listens any more on the connector ports declared in server.xml.
+   */
+  private void waitForShutdown(ILaunch server, IProgressMonitor monitor) throws CoreException {
+    long timeout = TomcatLauncherPlugin.getDefault().getShutdownTimeout() * 1000L;
+    long deadline = System.currentTimeMillis() + timeout;
+
+    if (server != null) {
+      while (!server.isTerminated() && System.currentTimeMillis() < deadline) {
+        if (!pause(monitor)) {
+          return;
+        }
+      }
+      if (!server.isTerminated()) {
+        TomcatLauncherPlugin.log("Tomcat still running " + timeout + " ms after shutdown, terminating it");
+        server.terminate();
+        // the JVM may still hold its ports for a while
+        long terminateDeadline = System.currentTimeMillis() + TERMINATE_TIMEOUT;
+        while (!server.isTerminated() && System.currentTimeMillis() < terminateDeadline) {
+          if (!pause(monitor)) {
+            return;
+          }
+        }
+        if (!server.isTerminated()) {
+          TomcatLauncherPlugin.log("Tomcat still running " + TERMINATE_TIMEOUT + " ms after being terminated");
+        }
+      }
+      return;
+    }
 
-    // Hack, need more testings
+    List<Integer> ports = getServerPorts();
+    while (isListening(ports) && System.currentTimeMillis() < deadline) {
+      if (!pause(monitor)) {
+        return;
+      }
+    }
+  }
+
+  private boolean pause(IProgressMonitor monitor) {
+    if (monitor.isCanceled()) {
+      throw new OperationCanceledException();
+    }
     try {
-      Thread.sleep(5000);
+      Thread.sleep(SHUTDOWN_POLL_INTERVAL);
+      return true;
     } catch (InterruptedException ex) {
-      // ignore exception
+      Thread.currentThread().interrupt();
+      return false;
     }
+  }
 
-    this.start();
+  /**
+   * Return connector ports declared in server.xml
+   */
+  private List<Integer> getServerPorts() {
+    File serverXml = new File(TomcatLauncherPlugin.getDefault().getConfigFile());
+    if (serverXml.isFile()) {
+      try {
+        return getConnectorPorts(FileUtil.readTextFile(serverXml));
+      } catch (IOException e) {
+        TomcatLauncherPlugin.log(e);
+      }
+    }
+    return new ArrayList<Integer>();
+  }
+
+  /**
+   * Return the ports of the connectors of a server.xml, not the shutdown port:
+   * Tomcat logs a warning for each connection to it without a valid command.
+   * Connectors commented out are ignored.
+   */
+  static List<Integer> getConnectorPorts(String serverXml) {
+    List<Integer> ports = new ArrayList<Integer>();
+    Matcher matcher = PORT_PATTERN.matcher(COMMENT_PATTERN.matcher(serverXml).replaceAll(""));
+    while (matcher.find()) {
+      int port = Integer.parseInt(matcher.group(1));
+      if (port > 0) {
+        ports.add(Integer.valueOf(port));
+      }
+    }
+    return ports;
+  }
+
+  private boolean isListening(List<Integer> ports) {
+    for (Integer port : ports) {
+      Socket socket = new Socket();
+      try {
+        socket.connect(new InetSocketAddress("localhost", port.intValue()), (int) SHUTDOWN_POLL_INTERVAL);
+        return true;
+      } catch (IOException e) {
+        // nothing listening on this port
+      } finally {
+        try {
+          socket.close();
+        } catch (IOException e) {
+          // ignore
+        }
+      }
+    }
+    return false;
   }
 
   /**
@@ -158,58 +281,18 @@ public abstract class TomcatBootstrap {
 
 	  IProject[] projects = TomcatLauncherPlugin.getWorkspace().getRoot().getProjects();
 
+	  List<TomcatProject> tomcatProjects = new ArrayList<TomcatProject>();
 	  for (int i = 0; i < projects.length; i++) {
 		  if (!projects[i].isOpen()) {
 			  continue;
 		  }
 		  TomcatProject tomcatProject = (TomcatProject) projects[i].getNature(TomcatLauncherPlugin.NATURE_ID);
-		  if (tomcatProject != null) {
-			  ArrayList webappClasspathFile = new ArrayList();
-			  ArrayList visitedProjects = new ArrayList(); /*IMC*/
-			  			  
-  			  if (projects[i].hasNature(JavaCore.NATURE_ID)) {
-  				  IJavaProject javaProject = JavaCore.create(projects[i]);
-  				  WebClassPathEntries entries = tomcatProject.getWebClassPathEntries();
-  	
-  				  IFile file = null;
-  				  if (tomcatProject.getRootDirFolder() == null) {
-  					  file = projects[i].getFile(new Path(WEBAPP_CLASSPATH_FILENAME));
-  				  } else {
-  					  file = tomcatProject.getRootDirFolder().getFile(new Path(WEBAPP_CLASSPATH_FILENAME));
-				  }
-
-  				  File cpFile = file.getLocation().makeAbsolute().toFile();
-  				  if (cpFile.exists()) {
-  					  cpFile.delete();
-  				  }
-  				  
-  				  if (entries != null) {
-  					  getClassPathEntries(javaProject, webappClasspathFile, entries.getList(), visitedProjects);
-  					  
-  					  if (tomcatProject.getMavenClasspath()) {
-  						  collectMavenDependencies(javaProject, webappClasspathFile, new ArrayList());
-  					  }
-  					  
-  					  if (!webappClasspathFile.isEmpty()) {
-  						  
-  						  try {
-  							  if (cpFile.createNewFile()) {
-  								  PrintWriter pw = new PrintWriter(new FileOutputStream(cpFile));
-  								  
-  								  for (int j = 0; j < webappClasspathFile.size(); j++) {
-  									  //TODO
-  									  pw.println(webappClasspathFile.get(j));
-  								  }
-  								  pw.close();
-  							  }
-  						  } catch (IOException e) {
-  							  e.printStackTrace();
-						  }
-					  }
-				  }
-			  }
+		  if (tomcatProject != null && projects[i].hasNature(JavaCore.NATURE_ID)) {
+			  tomcatProjects.add(tomcatProject);
 		  }
 	  }
+	  updateWebClassPathFiles(tomcatProjects);
+	  updateResourcesContexts(tomcatProjects);
 
 	  String[] classpath = new String[0];
 	  classpath = addPreferenceJvmToClasspath(classpath);
@@ -243,33 +326,186 @@ public abstract class TomcatBootstrap {
 
   }
 
-  private void add(ArrayList data, IPath entry) {
+  /**
+   * Update the Context definitions of the projects mounting their webclasspath as
+   * Resources, they list the classpath which may have changed since last start
+   */
+  private void updateResourcesContexts(List<TomcatProject> tomcatProjects) throws CoreException {
+	  List<TomcatProject> resourcesProjects = new ArrayList<TomcatProject>();
+	  for (TomcatProject tomcatProject : tomcatProjects) {
+		  if (tomcatProject.isResourcesClasspathApplied()) {
+			  resourcesProjects.add(tomcatProject);
+		  }
+	  }
+	  try {
+		  TomcatProject.updateContexts(resourcesProjects);
+	  } catch (IOException e) {
+		  TomcatLauncherPlugin.log(e);
+	  }
+  }
+
+  /**
+   * Update .#webclasspath of all projects. Projects are independent, so they are
+   * resolved concurrently on a pool bounded by the number of processors.
+   * Results are collected in project order: errors are logged in that order
+   * and the first one is rethrown once every project has been processed.
+   * @throws CoreException also if interrupted
+   */
+  private void updateWebClassPathFiles(List<TomcatProject> tomcatProjects) throws CoreException {
+	  int threads = Math.min(Runtime.getRuntime().availableProcessors(), tomcatProjects.size());
+	  if (threads <= 1) {
+		  for (TomcatProject tomcatProject : tomcatProjects) {
+			  updateWebClassPathFile(tomcatProject.getProject(), tomcatProject);
+		  }
+		  return;
+	  }
+
+	  ExecutorService executor = Executors.newFixedThreadPool(threads);
+	  try {
+		  List<Future<Object>> results = new ArrayList<Future<Object>>(tomcatProjects.size());
+		  for (final TomcatProject tomcatProject : tomcatProjects) {
+			  results.add(executor.submit(new Callable<Object>() {
+				  public Object call() throws CoreException {
+					  updateWebClassPathFile(tomcatProject.getProject(), tomcatProject);
+					  return null;
+				  }
+			  }));
+		  }
+
+		  Throwable firstError = null;
+		  for (int i = 0; i < results.size(); i++) {
+			  try {
+				  results.get(i).get();
+			  } catch (ExecutionException e) {
+				  TomcatLauncherPlugin.log("Updating webclasspath of " + tomcatProjects.get(i).getProject().getName() + " failed: " + e.getCause());
+				  if (firstError == null) {
+					  firstError = e.getCause();
+				  }
+			  } catch (InterruptedException e) {
+				  // the launch must not go on with part of the files written
+				  Thread.currentThread().interrupt();
+				  throw new CoreException(new Status(IStatus.ERROR, TomcatLauncherPlugin.PLUGIN_ID, IStatus.ERROR,
+						  "Interrupted while updating webclasspath files", e));
+			  }
+		  }
+		  if (firstError instanceof CoreException) {
+			  throw (CoreException) firstError;
+		  } else if (firstError instanceof RuntimeException) {
+			  throw (RuntimeException) firstError;
+		  } else if (firstError instanceof Error) {
+			  throw (Error) firstError;
+		  }
+	  } finally {
+		  executor.shutdownNow();
+	  }
+  }
+
+  /**
+   * Update .#webclasspath of a project while Tomcat runs, DevLoader adds
+   * the new entries to the running context without reloading it.
+   * With Resources, the Context definition is updated instead.
+   */
+  public void updateWebClassPath(TomcatProject tomcatProject) throws CoreException {
+	  updateWebClassPathFile(tomcatProject.getProject(), tomcatProject);
+	  if (tomcatProject.isResourcesClasspathApplied()) {
+		  try {
+			  tomcatProject.updateContext();
+		  } catch (IOException e) {
+			  TomcatLauncherPlugin.log(e);
+		  }
+	  }
+  }
+
+  /**
+   * Only DevLoaderTomcat8.jar, used by Tomcat 8 and 9, reads version 2 of .#webclasspath
+   */
+  private static boolean isWebClassPathVersion2() {
+	  String version = TomcatLauncherPlugin.getDefault().getTomcatVersion();
+	  return version.equals(TomcatLauncherPlugin.TOMCAT_VERSION8) || version.equals(TomcatLauncherPlugin.TOMCAT_VERSION9);
+  }
+
+  /**
+   * Write the classpath loaded by DevLoader for this project to .#webclasspath.
+   * The file is left untouched if its header or content does not change, and removed
+   * when the project uses Resources instead of DevLoader.
+   */
+  private void updateWebClassPathFile(IProject project, TomcatProject tomcatProject) throws CoreException {
+	  IFile file = null;
+	  if (tomcatProject.getRootDirFolder() == null) {
+		  file = project.getFile(new Path(WEBAPP_CLASSPATH_FILENAME));
+	  } else {
+		  file = tomcatProject.getRootDirFolder().getFile(new Path(WEBAPP_CLASSPATH_FILENAME));
+	  }
+	  File cpFile = file.getLocation().makeAbsolute().toFile();
+
+	  // removed exactly when the Context definition drops DevLoader
+	  List<String> webappClasspath = tomcatProject.isResourcesClasspathApplied() ? null : getWebClassPath(tomcatProject);
+	  if (webappClasspath == null || webappClasspath.isEmpty()) {
+		  if (cpFile.exists()) {
+			  cpFile.delete();
+		  }
+		  return;
+	  }
+
+	  try {
+		  new WebClassPathFile(webappClasspath, isWebClassPathVersion2()).write(cpFile);
+	  } catch (IOException e) {
+		  TomcatLauncherPlugin.log(e);
+	  }
+  }
+
+  /**
+   * Resolve the webapp classpath of this project, as loaded by DevLoader or
+   * mounted as Resources. The classpath is resolved again only if the cached
+   * one is outdated.
+   * @return entries in classpath order, null if the webclasspath is not activated
+   */
+  public List<String> getWebClassPath(TomcatProject tomcatProject) throws CoreException {
+	  IProject project = tomcatProject.getProject();
+	  IJavaProject javaProject = JavaCore.create(project);
+	  WebClassPathEntries entries = tomcatProject.getWebClassPathEntries();
+	  if (entries == null) {
+		  return null;
+	  }
+
+	  WebClassPathCache cache = TomcatLauncherPlugin.getDefault().getWebClassPathCache();
+	  String fingerprint = cache.fingerprint(javaProject, entries.getList(), tomcatProject.getMavenClasspath());
+	  List<String> webappClasspath = cache.get(project.getName(), fingerprint);
+	  if (webappClasspath == null) {
+		  long generation = cache.getGeneration();
+		  ClassPathBuilder webappClasspathFile = new ClassPathBuilder();
+		  Set<String> visitedProjects = new HashSet<String>(); /*IMC*/
+		  Set<String> visitedMavenProjects = new HashSet<String>();
+		  Set<String> selectedPaths = new HashSet<String>(entries.getList());
+
+		  getClassPathEntries(javaProject, webappClasspathFile, selectedPaths, visitedProjects);
+		  if (tomcatProject.getMavenClasspath()) {
+			  collectMavenDependencies(javaProject, webappClasspathFile, visitedMavenProjects);
+		  }
+
+		  webappClasspath = webappClasspathFile.toList();
+		  visitedProjects.addAll(visitedMavenProjects);
+		  cache.put(project.getName(), fingerprint, webappClasspath, visitedProjects, generation);
+	  }
+	  return webappClasspath;
+  }
+
+  private void add(ClassPathBuilder data, IPath entry) {
     IPath myEntry = entry;
     if (!myEntry.isAbsolute()) {
       myEntry = myEntry.makeAbsolute();
     }
-    String tmp = myEntry.toFile().toString();
-    if (!data.contains(tmp)) {
-      data.add(tmp);
-    }
+    data.add(myEntry.toFile().toString());
   }
 
-  private void add(ArrayList data, IResource con) {
+  private void add(ClassPathBuilder data, IResource con) {
     if (con == null) {
       return;
     }
     add(data, con.getLocation());
   }
 
-  private void add(List data, IResource findMember) {
-    add(new ArrayList(data), findMember);
-  }
-
-  private void add(List data, IPath entry) {
-    add(new ArrayList(data), entry);
-  }
-
-  private void getClassPathEntries(IJavaProject prj, ArrayList data, List selectedPaths, ArrayList visitedProjects) {
+  private void getClassPathEntries(IJavaProject prj, ClassPathBuilder data, Set<String> selectedPaths, Set<String> visitedProjects) {
     IClasspathEntry[] entries = null;
 
     IPath outputPath = null;
@@ -288,7 +524,7 @@ public abstract class TomcatBootstrap {
     }
   }
 
-  private void getClassPathEntries(IClasspathEntry[] entries, IJavaProject prj, ArrayList data, List selectedPaths, ArrayList visitedProjects, IPath outputPath) {
+  private void getClassPathEntries(IClasspathEntry[] entries, IJavaProject prj, ClassPathBuilder data, Set<String> selectedPaths, Set<String> visitedProjects, IPath outputPath) {
     for (IClasspathEntry entrie : entries) {
       IClasspathEntry entry = entrie;
       IPath path = entry.getPath();
@@ -300,8 +536,7 @@ public abstract class TomcatBootstrap {
       }
       if (entry.getEntryKind() == IClasspathEntry.CPE_PROJECT) {
         String prjName = entry.getPath().lastSegment();
-        if (!visitedProjects.contains(prjName)) {
-          visitedProjects.add(prjName);
+        if (visitedProjects.add(prjName)) {
           getClassPathEntries(prj.getJavaModel().getJavaProject(prjName), data, selectedPaths, visitedProjects);
         }
         continue;
@@ -362,7 +597,7 @@ public abstract class TomcatBootstrap {
     }
   }
 
-  private void collectMavenDependencies(IJavaProject prj, List data, List visitedProjects) {
+  private void collectMavenDependencies(IJavaProject prj, ClassPathBuilder data, Set<String> visitedProjects) {
     IClasspathEntry[] entries = null;
     try {
       add(data, prj.getProject().getWorkspace().getRoot().findMember(prj.getOutputLocation()));
@@ -376,7 +611,7 @@ public abstract class TomcatBootstrap {
     }
   }
 
-  private void collectMavenDependencies(IClasspathEntry[] entries, IJavaProject prj, List data, List visitedProjects) {
+  private void collectMavenDependencies(IClasspathEntry[] entries, IJavaProject prj, ClassPathBuilder data, Set<String> visitedProjects) {
     for (int i = 0; i < entries.length; i++) {
       IClasspathEntry entry = entries[i];
       IPath path = entry.getPath();
@@ -421,8 +656,7 @@ public abstract class TomcatBootstrap {
               TomcatLauncherPlugin.log(e1);
               continue;
             }
-            if (!visitedProjects.contains(prjName)) {
-              visitedProjects.add(prjName);
+            if (visitedProjects.add(prjName)) {
               collectMavenDependencies(subPrj, data, visitedProjects);
             }
             continue;
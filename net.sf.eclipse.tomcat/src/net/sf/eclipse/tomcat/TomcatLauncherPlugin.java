@@ -45,6 +45,7 @@ import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.variables.IStringVariableManager;
 import org.eclipse.core.variables.VariablesPlugin;
+import org.eclipse.jdt.core.ElementChangedEvent;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
@@ -53,6 +54,7 @@ import org.eclipse.jdt.launching.JavaRuntime;
 import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.preference.IPreferenceStore;
 import org.eclipse.swt.widgets.Shell;
+import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 
 /**
@@ -77,6 +79,7 @@ public class TomcatLauncherPlugin extends AbstractUIPlugin {
     static final String TOMCAT_PREF_DEBUGMODE_KEY = "tomcatDebugMode";
     static final String TOMCAT_PREF_TARGETPERSPECTIVE = "targetPerspective";
     static final String TOMCAT_PREF_SECURITYMANAGER = "enabledSecurityManager";
+    static final String TOMCAT_PREF_SHUTDOWN_TIMEOUT_KEY = "shutdownTimeout";
     static final String TOMCAT_PREF_MANAGER_URL = "managerUrl";
     static final String TOMCAT_PREF_MANAGER_USER = "managerUser";
     static final String TOMCAT_PREF_MANAGER_PASSWORD = "managerPassword";
@@ -101,6 +104,10 @@ public class TomcatLauncherPlugin extends AbstractUIPlugin {
     private static TomcatLauncherPlugin plugin;
     //Resource bundle.
     private ResourceBundle resourceBundle;
+    //Webapp classpath resolved at last Tomcat start
+    private final WebClassPathCache webClassPathCache = new WebClassPathCache();
+    //Startup time of Tomcat launched from the workbench
+    private final TomcatStartupMonitor startupMonitor = new TomcatStartupMonitor();
 
     /**
      * The constructor.
@@ -115,6 +122,8 @@ public class TomcatLauncherPlugin extends AbstractUIPlugin {
         }
 
         this.getWorkspace().addResourceChangeListener(new TomcatProjectChangeListener(), IResourceChangeEvent.PRE_DELETE);
+        this.getWorkspace().addResourceChangeListener(new TomcatProjectPropertiesListener(), IResourceChangeEvent.POST_CHANGE);
+        JavaCore.addElementChangedListener(webClassPathCache, ElementChangedEvent.POST_CHANGE);
     }
 
     /**
@@ -167,8 +176,12 @@ public class TomcatLauncherPlugin extends AbstractUIPlugin {
     /**
      * Returns the active shell for this plugin.
      */
+    /**
+     * @return shell of the active workbench window, null if no window is active
+     */
     public static Shell getShell() {
-        return getDefault().getWorkbench().getActiveWorkbenchWindow().getShell();
+        IWorkbenchWindow window = getDefault().getWorkbench().getActiveWorkbenchWindow();
+        return window == null ? null : window.getShell();
     }
 
     /**
@@ -265,6 +278,14 @@ public class TomcatLauncherPlugin extends AbstractUIPlugin {
         return pref.getBoolean(TOMCAT_PREF_SECURITYMANAGER);
     }
 
+    /**
+     * @return seconds to wait for Tomcat to stop before restarting it
+     */
+    public int getShutdownTimeout() {
+        IPreferenceStore pref =	TomcatLauncherPlugin.getDefault().getPreferenceStore();
+        return pref.getInt(TOMCAT_PREF_SHUTDOWN_TIMEOUT_KEY);
+    }
+
     public String getJvmParamaters() {
         IPreferenceStore pref =	TomcatLauncherPlugin.getDefault().getPreferenceStore();
         return pref.getString(TOMCAT_PREF_JVM_PARAMETERS_KEY);
@@ -311,6 +332,14 @@ public class TomcatLauncherPlugin extends AbstractUIPlugin {
     }
 
 
+    public WebClassPathCache getWebClassPathCache() {
+        return webClassPathCache;
+    }
+
+    public TomcatStartupMonitor getStartupMonitor() {
+        return startupMonitor;
+    }
+
     public String getManagerAppUrl() {
         IPreferenceStore pref =	TomcatLauncherPlugin.getDefault().getPreferenceStore();
         return pref.getString(TOMCAT_PREF_MANAGER_URL);
@@ -332,6 +361,12 @@ public class TomcatLauncherPlugin extends AbstractUIPlugin {
         log.log(status);
     }
 
+    static public void log(int severity, String msg) {
+        ILog log = TomcatLauncherPlugin.getDefault().getLog();
+        Status status = new Status(severity, PLUGIN_ID, IStatus.OK, msg, null);
+        log.log(status);
+    }
+
     static public void log(Exception ex) {
         ILog log = TomcatLauncherPlugin.getDefault().getLog();
         StringWriter stringWriter = new StringWriter();
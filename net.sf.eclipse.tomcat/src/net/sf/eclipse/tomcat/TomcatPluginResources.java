@@ -102,6 +102,9 @@ public interface TomcatPluginResources {
     static final String PREF_PAGE_SECURITYMANAGER_LABEL	=
                     TomcatLauncherPlugin.getResourceString("pref.page.securityManager.label");
 
+    static final String PREF_PAGE_SHUTDOWNTIMEOUT_LABEL	=
+                    TomcatLauncherPlugin.getResourceString("pref.page.shutdownTimeout.label");
+
     static final String PREF_PAGE_NONE_LABEL	=
                     TomcatLauncherPlugin.getResourceString("pref.page.none.label");
 
@@ -128,6 +131,27 @@ public interface TomcatPluginResources {
     static final String WIZARD_PROJECT_WARLOCATION_LABEL =
                     TomcatLauncherPlugin.getResourceString("wizard.project.warLocation.label");
 
+    static final String WIZARD_PROJECT_WARCOMPRESSION_LABEL =
+                    TomcatLauncherPlugin.getResourceString("wizard.project.warCompression.label");
+
+    static final String WIZARD_PROJECT_WARCOMPRESSION_DEFAULT =
+                    TomcatLauncherPlugin.getResourceString("wizard.project.warCompression.default");
+
+    static final String WIZARD_PROJECT_WARCOMPRESSION_FAST =
+                    TomcatLauncherPlugin.getResourceString("wizard.project.warCompression.fast");
+
+    static final String WIZARD_PROJECT_WARCOMPRESSION_SMALL =
+                    TomcatLauncherPlugin.getResourceString("wizard.project.warCompression.small");
+
+    static final String WIZARD_PROJECT_WARREPRODUCIBLE_LABEL =
+                    TomcatLauncherPlugin.getResourceString("wizard.project.warReproducible.label");
+
+    static final String WIZARD_PROJECT_DEPLOYDIR_LABEL =
+                    TomcatLauncherPlugin.getResourceString("wizard.project.deployDir.label");
+
+    static final String WIZARD_PROJECT_DEPLOYHARDLINKS_LABEL =
+                    TomcatLauncherPlugin.getResourceString("wizard.project.deployHardLinks.label");
+
     static final String PROPERTIES_PAGE_PROJECT_ISTOMCATPROJECT_LABEL =
                     TomcatLauncherPlugin.getResourceString("properties.page.project.isTomcatProject.label");
 
@@ -185,6 +209,9 @@ public interface TomcatPluginResources {
     static final String PROPERTIES_PAGE_PROJECT_ACTIVATE_MAVENCLASSPATH_LABEL =
                     TomcatLauncherPlugin.getResourceString("properties.page.project.activate.mavenclasspath.label");
 
+    static final String PROPERTIES_PAGE_PROJECT_RESOURCESCLASSPATH_LABEL =
+                    TomcatLauncherPlugin.getResourceString("properties.page.project.resourcesclasspath.label");
+
     static final String PROPERTIES_PAGE_PROJECT_ACTIVATE_DEVLOADER_LABEL =
                     TomcatLauncherPlugin.getResourceString("properties.page.project.activate.devloader.label");
 
@@ -200,6 +227,9 @@ public interface TomcatPluginResources {
     static final String PROJECT_WAREXPORT_EXCLUDE_FILES =
                     TomcatLauncherPlugin.getResourceString("project.warExport.exclude.files");
 
+    static final String PROJECT_WAREXPORT_STORED_EXTENSIONS =
+                    TomcatLauncherPlugin.getResourceString("project.warExport.stored.extensions");
+
     static final String PREF_PAGE_MANAGER_BANNER =
                     TomcatLauncherPlugin.getResourceString("pref.page.manager.banner");
 
@@ -21,12 +21,14 @@ package net.sf.eclipse.tomcat;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.zip.Deflater;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -34,12 +36,15 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectNature;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceStatus;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.PlatformObject;
-import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.core.IClasspathEntry;
 import org.eclipse.jdt.core.IJavaProject;
@@ -53,19 +58,15 @@ import net.sf.eclipse.tomcat.editors.ProjectListElement;
 public class TomcatProject extends PlatformObject implements IProjectNature  {
 
     // Persistence properties of projects
-    private static final String PROPERTIES_FILENAME = ".tomcatplugin";
-    private static final String KEY_WEBPATH = "webPath";
-    private static final String KEY_UPDATEXML = "updateXml";
-    private static final String KEY_EXPORTSOURCE = "exportSource";
-    private static final String KEY_RELOADABLE="reloadable";
-    private static final String KEY_REDIRECTLOGGER="redirectLogger";
-    private static final String KEY_WARLOCATION = "warLocation";
-    private static final String KEY_ROOTDIR = "rootDir";
-    private static final String KEY_WORKDIR = "workDir";
-    private static final String KEY_EXTRAINFO = "extraInfo";
-    private static final String KEY_SMARTMAVENCLASSPATH = "mavenClasspath";
+    private static final String PROPERTIES_FILENAME = TomcatProjectProperties.FILENAME;
     private static final String extraBeginTag = "<!-- Extra info begin -->";
     private static final String extraEndTag = "<!-- Extra info end -->";
+    private static final String resourcesBeginTag = "<!-- Webclasspath resources begin -->";
+    private static final String resourcesEndTag = "<!-- Webclasspath resources end -->";
+
+    /** values of warCompression, empty for the default compression level */
+    public static final String WAR_COMPRESSION_FAST = "fast";
+    public static final String WAR_COMPRESSION_SMALL = "small";
 
 
     /**
@@ -76,14 +77,19 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
 
     protected String webPath = "";
     protected String warLocation = "";
+    protected String warCompression = "";
+    protected String deployDir = "";
     protected String rootDir = "";
     protected String workDir = "";
     protected String extraInfo = "";
     protected boolean updateXml;
     protected boolean exportSource;
+    protected boolean warReproducible;
+    protected boolean deployHardLinks;
     protected boolean reloadable = true;
     protected boolean redirectLogger = false;
     protected boolean mavenClasspath = false;
+    protected boolean resourcesClasspath = false;
     protected WebClassPathEntries webClassPathEntries;
 
     protected IFolder rootDirFolder;
@@ -176,23 +182,11 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
         return (this.getProject().getLocation().append(PROPERTIES_FILENAME).toFile());
     }
 
-    private String readProperty(String key) {
-        String result = null;
-        try {
-            result = FileUtil.readPropertyInXMLFile(getPropertiesFile(), key);
-        } catch (IOException e) {
-            try {
-                result = getJavaProject().getCorrespondingResource().getPersistentProperty(new QualifiedName("TomcatProject", key));
-            } catch (Exception e2) {
-                TomcatLauncherPlugin.log(e2);
-            }
-        }
-
-        if(result == null) {
-            result = "";
-        }
-
-        return result;
+    /**
+     * Settings stored in .tomcatplugin, parsed once and cached until the file changes
+     */
+    private TomcatProjectProperties getProperties() {
+        return TomcatProjectProperties.get(getProject());
     }
 
     /**
@@ -201,7 +195,7 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
      * @return Returns a String
      */
     public String getRootDir() {
-        return this.readProperty(KEY_ROOTDIR);
+        return this.getProperties().getRootDir();
     }
 
     /**
@@ -220,7 +214,7 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
      * @return Returns a String
      */
     public String getWorkDir() {
-        return this.readProperty(KEY_WORKDIR);
+        return this.getProperties().getWorkDir();
     }
 
     /**
@@ -239,7 +233,7 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
      * @return Returns a String
      */
     public String getWebPath() {
-        return this.readProperty(KEY_WEBPATH);
+        return this.getProperties().getWebPath();
     }
 
     /**
@@ -266,7 +260,7 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
      * @return Returns a String
      */
     public String getWarLocation() {
-        return this.readProperty(KEY_WARLOCATION);
+        return this.getProperties().getWarLocation();
     }
 
     /**
@@ -278,13 +272,67 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
         this.warLocation = wl;
     }
 
+    /**
+     * Gets the compression of exported WAR.
+     *
+     * @return WAR_COMPRESSION_FAST, WAR_COMPRESSION_SMALL or empty for default
+     */
+    public String getWarCompression() {
+        return this.getProperties().getWarCompression();
+    }
+
+    /**
+     * Sets the compression of exported WAR.
+     *
+     * @param warCompression WAR_COMPRESSION_FAST, WAR_COMPRESSION_SMALL or empty for default
+     */
+    public void setWarCompression(String warCompression) {
+        this.warCompression = warCompression;
+    }
+
+    /**
+     * Gets the directory where the project is deployed exploded.
+     *
+     * @return Returns a String, empty if not set
+     */
+    public String getDeployDir() {
+        return this.getProperties().getDeployDir();
+    }
+
+    /**
+     * Sets the directory where the project is deployed exploded.
+     *
+     * @param deployDir The deployDir to set
+     */
+    public void setDeployDir(String deployDir) {
+        this.deployDir = deployDir;
+    }
+
+    /**
+     * Gets the deployHardLinks.
+     *
+     * @return Returns a boolean
+     */
+    public boolean getDeployHardLinks() {
+        return this.getProperties().getDeployHardLinks();
+    }
+
+    /**
+     * Sets the deployHardLinks.
+     *
+     * @param deployHardLinks true to deploy hard links to project files instead of copies
+     */
+    public void setDeployHardLinks(boolean deployHardLinks) {
+        this.deployHardLinks = deployHardLinks;
+    }
+
     /**
      * Gets the updateXml.
      *
      * @return Returns a boolean
      */
     public boolean getUpdateXml() {
-        return Boolean.parseBoolean(this.readProperty(KEY_UPDATEXML));
+        return this.getProperties().getUpdateXml();
     }
 
     /**
@@ -302,7 +350,7 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
      * @return Returns a boolean
      */
     public boolean getExportSource() {
-        return new Boolean(this.readProperty(KEY_EXPORTSOURCE)).booleanValue();
+        return this.getProperties().getExportSource();
     }
 
     /**
@@ -314,18 +362,31 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
         this.exportSource = exportSource;
     }
 
+    /**
+     * Gets the warReproducible.
+     *
+     * @return Returns a boolean
+     */
+    public boolean getWarReproducible() {
+        return this.getProperties().getWarReproducible();
+    }
+
+    /**
+     * Sets the warReproducible.
+     *
+     * @param warReproducible true to export a reproducible WAR
+     */
+    public void setWarReproducible(boolean warReproducible) {
+        this.warReproducible = warReproducible;
+    }
+
     /**
      * Gets the reloadable
      *
      * @return Returns a boolean
      */
     public boolean getReloadable(){
-        String reloadableProperty = this.readProperty(KEY_RELOADABLE);
-        // Set default value to true
-        if(reloadableProperty.equals("")) {
-            reloadableProperty = "true";
-        }
-        return Boolean.parseBoolean(reloadableProperty);
+        return this.getProperties().getReloadable();
     }
 
     /**
@@ -343,12 +404,7 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
      * @return Returns a boolean
      */
     public boolean getRedirectLogger(){
-        String redirectLoggerProperty = this.readProperty(KEY_REDIRECTLOGGER);
-        // Set default value to false
-        if(redirectLoggerProperty.equals("")) {
-            redirectLoggerProperty = "false";
-        }
-        return Boolean.parseBoolean(redirectLoggerProperty);
+        return this.getProperties().getRedirectLogger();
     }
 
     /**
@@ -366,7 +422,7 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
      * @return Returns a String
      */
     public String getExtraInfo() {
-        return URLDecoder.decode(this.readProperty(KEY_EXTRAINFO));
+        return this.getProperties().getExtraInfo();
     }
 
     /**
@@ -379,13 +435,33 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
     }
 
     public boolean getMavenClasspath() {
-      return Boolean.valueOf(this.readProperty(KEY_SMARTMAVENCLASSPATH)).booleanValue();
+      return this.getProperties().getMavenClasspath();
     }
 
     public void setMavenClasspath(boolean mavenClasspath) {
       this.mavenClasspath = mavenClasspath;
     }
 
+    /**
+     * @return true if the webclasspath is mounted as Tomcat 8 Resources instead
+     * of being loaded by DevLoader
+     */
+    public boolean getResourcesClasspath() {
+        return this.getProperties().getResourcesClasspath();
+    }
+
+    /**
+     * @return true if the Context definition mounts the webclasspath as Resources,
+     * DevLoader and .#webclasspath are not used then
+     */
+    public boolean isResourcesClasspathApplied() {
+        return getResourcesClasspath() && getUpdateXml() && isResourcesSupported();
+    }
+
+    public void setResourcesClasspath(boolean resourcesClasspath) {
+        this.resourcesClasspath = resourcesClasspath;
+    }
+
     /**
      * set the classpath entries which shall be loaded by the webclassloader
      *
@@ -399,11 +475,7 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
      * return the webclasspath entries
      */
     public WebClassPathEntries getWebClassPathEntries() {
-        try {
-            return WebClassPathEntries.xmlUnmarshal(FileUtil.readTextFile(getPropertiesFile()));
-        } catch(IOException ioEx) {
-            return null;
-        }
+        return this.getProperties().getWebClassPathEntries();
     }
 
     /**
@@ -421,14 +493,20 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
             fileContent.append("    <redirectLogger>" + redirectLogger + "</redirectLogger>\n");
             fileContent.append("    <updateXml>" + updateXml + "</updateXml>\n");
             fileContent.append("    <warLocation>" + warLocation + "</warLocation>\n");
+            fileContent.append("    <warCompression>" + warCompression + "</warCompression>\n");
+            fileContent.append("    <warReproducible>" + warReproducible + "</warReproducible>\n");
+            fileContent.append("    <deployDir>" + deployDir + "</deployDir>\n");
+            fileContent.append("    <deployHardLinks>" + deployHardLinks + "</deployHardLinks>\n");
             fileContent.append("    <extraInfo>" + URLEncoder.encode(extraInfo) + "</extraInfo>\n");
       fileContent.append("    <mavenClasspath>" + mavenClasspath + "</mavenClasspath>\n");
+            fileContent.append("    <resourcesClasspath>" + resourcesClasspath + "</resourcesClasspath>\n");
             fileContent.append("    <webPath>" + webPath + "</webPath>\n");
             if (webClassPathEntries != null) {
                 fileContent.append(webClassPathEntries.xmlMarshal(4));
             }
             fileContent.append("</tomcatProjectProperties>\n");
             FileUtil.toTextFile(getPropertiesFile(), fileContent.toString());
+            TomcatProjectProperties.invalidate(getProject());
             // refresh the project files.
             project.refreshLocal(IResource.DEPTH_ONE, null);
 
@@ -603,6 +681,35 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
 
     }
 
+    /**
+     * Delete the content of the JSP work folder, files being deleted concurrently.
+     * Files are deleted on disk inside a single workspace operation, the folder is
+     * then refreshed once, so the workspace sees one change and not one per file,
+     * also when the monitor is canceled.
+     * See {@link CleanWorkFolderJob} to do it in background.
+     *
+     * @return number of files deleted
+     */
+    public int cleanWorkFolder(IProgressMonitor monitor) throws CoreException {
+        final IFolder folder = this.getWorkFolder();
+        final int[] deleted = new int[1];
+        ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+            public void run(IProgressMonitor runMonitor) throws CoreException {
+                try {
+                    File dir = folder.getLocation().toFile();
+                    if (dir.isDirectory()) {
+                        deleted[0] = FileUtil.removeContent(dir, Runtime.getRuntime().availableProcessors(), runMonitor);
+                    }
+                } catch (IOException e) {
+                    throw new CoreException(new Status(IStatus.ERROR, TomcatLauncherPlugin.PLUGIN_ID, IStatus.ERROR, e.getMessage(), e));
+                } finally {
+                    folder.refreshLocal(IResource.DEPTH_INFINITE, null);
+                }
+            }
+        }, folder, IWorkspace.AVOID_UPDATE, monitor);
+        return deleted[0];
+    }
+
     public void setSrcAsSourceFolder()  throws CoreException {
         //		this.setFolderAsSourceEntry(project.getFolder("src"));
     }
@@ -693,14 +800,89 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
     private void updateServerXML() throws CoreException, IOException {
 
         if(getUpdateXml()) {
-            this.backupServerXML();
+            checkServerXML();
 
             String xml = FileUtil.readTextFile(getServerXML());
-            if(!contextExistsInXML(xml)) {
-                this.addContextToServerXML();
-            } else {
-                this.updateContextDefinitionInFile(getServerXML());
+            String newXml = this.updateContextInXML(xml);
+            if(!newXml.equals(xml)) {
+                backupServerXML();
+                FileUtil.toTextFile(getServerXML(), newXml);
+            }
+        }
+    }
+
+    /**
+     * Add or update the Context entry of this project in the content of server.xml
+     * @return the new content of server.xml
+     */
+    private String updateContextInXML(String xml) throws IOException {
+        ContextXmlEditor editor = new ContextXmlEditor(xml, getWebPath());
+        if(editor.hasContext()) {
+            this.updateContextDefinition(editor);
+            return editor.getXml();
+        }
+
+        String tag = TomcatLauncherPlugin.getDefault().getTomcatBootstrap().getXMLTagAfterContextDefinition();
+        String tagName = tag.substring(2, tag.length() - 1);
+        String newXml = ContextXmlEditor.insertBeforeEndTag(xml, tagName, this.createContextDefinition());
+        if(newXml == null) {
+            throw new IOException(tag + " not found in " + getServerXML().getAbsolutePath());
+        }
+        return newXml;
+    }
+
+    /**
+     * Add or update the Context definition of every open Tomcat project which
+     * has updateXml set, see {@link #updateContexts(List)}
+     */
+    public static void updateAllContexts() throws CoreException, IOException {
+        List<TomcatProject> tomcatProjects = new ArrayList<TomcatProject>();
+        IProject[] projects = TomcatLauncherPlugin.getWorkspace().getRoot().getProjects();
+        for (IProject project : projects) {
+            if(project.isOpen()) {
+                TomcatProject tomcatProject = TomcatProject.create(project);
+                if(tomcatProject != null) {
+                    tomcatProjects.add(tomcatProject);
+                }
+            }
+        }
+        updateContexts(tomcatProjects);
+    }
+
+    /**
+     * Add or update the Context definition of these projects, those without
+     * updateXml set are skipped. server.xml is read once, backed up once and
+     * replaced once with all changes applied.
+     */
+    public static void updateContexts(List<TomcatProject> projects) throws CoreException, IOException {
+        List<TomcatProject> tomcatProjects = new ArrayList<TomcatProject>();
+        for (TomcatProject tomcatProject : projects) {
+            if(tomcatProject.getUpdateXml()) {
+                tomcatProjects.add(tomcatProject);
+            }
+        }
+        if(tomcatProjects.isEmpty()) {
+            return;
+        }
+
+        if(!TomcatLauncherPlugin.getDefault().getConfigMode().equals(TomcatLauncherPlugin.SERVERXML_MODE)) {
+            // one file per context, nothing to share
+            for (TomcatProject tomcatProject : tomcatProjects) {
+                tomcatProject.updateContextFile();
             }
+            return;
+        }
+
+        checkServerXML();
+        String xml = FileUtil.readTextFile(getServerXML());
+        String newXml = xml;
+        for (TomcatProject tomcatProject : tomcatProjects) {
+            newXml = tomcatProject.updateContextInXML(newXml);
+        }
+
+        if(!newXml.equals(xml)) {
+            backupServerXML();
+            FileUtil.toTextFile(getServerXML(), newXml);
         }
     }
 
@@ -754,23 +936,14 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
     }
 
     private void removeContextInServerXML() throws CoreException, IOException {
-        this.backupServerXML();
+        checkServerXML();
 
         String xml = FileUtil.readTextFile(getServerXML());
-        if(contextExistsInXML(xml)) {
-            int contextTagIdx = this.getContextTagIndex(xml);
-            int endTagIndex = xml.indexOf("</Context>", contextTagIdx);
-            if (endTagIndex < 0) {
-                endTagIndex = xml.indexOf('>', contextTagIdx);
-            } else {
-                endTagIndex+= "</Context>".length();
-            }
-
-            StringBuffer out = null;
-
-            out = new StringBuffer(xml.substring(0, contextTagIdx));
-            out.append(xml.substring(endTagIndex+1, xml.length()));
-            FileUtil.toTextFile(getServerXML(), out.toString());
+        ContextXmlEditor editor = new ContextXmlEditor(xml, getWebPath());
+        if(editor.hasContext()) {
+            backupServerXML();
+            editor.removeContext();
+            FileUtil.toTextFile(getServerXML(), editor.getXml());
         }
     }
 
@@ -780,15 +953,11 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
      * - Initial server.xml is backuped to server.xml.backup
      * - Before updating server.xml create a copy named server.xml.old
      */
-    public void backupServerXML() throws CoreException, IOException {
+    public static void backupServerXML() throws CoreException, IOException {
         String backup =  getServerXMLLocation() + ".backup";
         String old =  getServerXMLLocation() + ".old";
 
-        if(!getServerXML().exists()) {
-            String msg = "Tomcat server.xml file is not found in " + getServerXML().getAbsolutePath();
-            Status status = new Status(IStatus.ERROR, TomcatLauncherPlugin.getDefault().toString(), IStatus.ERROR, msg, null);
-            throw new CoreException(status);
-        }
+        checkServerXML();
 
         File backupFile = new File(backup);
         if(!backupFile.exists()) {
@@ -800,468 +969,213 @@ public class TomcatProject extends PlatformObject implements IProjectNature  {
 
 
 
-    private File getServerXML() {
+    private static void checkServerXML() throws CoreException {
+        if(!getServerXML().exists()) {
+            String msg = "Tomcat server.xml file is not found in " + getServerXML().getAbsolutePath();
+            Status status = new Status(IStatus.ERROR, TomcatLauncherPlugin.getDefault().toString(), IStatus.ERROR, msg, null);
+            throw new CoreException(status);
+        }
+    }
+
+    private static File getServerXML() {
         return new File(getServerXMLLocation());
     }
 
-    private String getServerXMLLocation() {
+    private static String getServerXMLLocation() {
         return TomcatLauncherPlugin.getDefault().getConfigFile();
     }
 
+    private String createContextDefinition() throws IOException {
+        String emptyContext = "<Context path=\"" + ContextXmlEditor.escape(getWebPath(), '"') + "\" />\n";
+        ContextXmlEditor editor = new ContextXmlEditor(emptyContext, getWebPath());
+        this.updateContextDefinition(editor);
+        return editor.getXml();
+    }
 
     /**
-     * Quick and dirty implementations : using an XML Parser would be better
+     * Set attributes and child elements managed by the plugin,
+     * leave everything else in the Context element as is
      */
-    private boolean contextExistsInXML(String xml) {
-        return (getContextTagIndex(xml) != -1);
-    }
-
-    private int getContextTagIndex(String xml) {
-        int pathIndex = xml.indexOf(getContextPath());
-
-        if(pathIndex == -1) {
-            return -1;
-        }
-
-        int tagIndex = (xml.substring(0, pathIndex)).lastIndexOf('<');
-        String tag = xml.substring(tagIndex, tagIndex + 8);
-        if(!tag.equalsIgnoreCase(getContextStartTag())) {
-            return -1;
-        }
-
-        return tagIndex;
-    }
-
-    private void addContextToServerXML() throws IOException {
-        String xml = FileUtil.readTextFile(getServerXML());
-        String tag = TomcatLauncherPlugin.getDefault().getTomcatBootstrap().getXMLTagAfterContextDefinition();
-
-        int tagIndex = xml.indexOf(tag);
-        int insertIndex = (xml.substring(0, tagIndex)).lastIndexOf('\n');
-
-        StringBuffer out = new StringBuffer(xml.substring(0, insertIndex));
-        out.append(this.createContextDefinition());
-        out.append(xml.substring(insertIndex, xml.length()));
-
-        FileUtil.toTextFile(getServerXML(), out.toString());
-    }
-
-    private String createContextDefinition() {
-        StringBuffer contextBuffer = new StringBuffer();
-        contextBuffer.append(getContextStartTag());
-        contextBuffer.append(' ');
-        contextBuffer.append(getContextPath());
-        contextBuffer.append(' ');
-        contextBuffer.append(getContextReloadable());
-        contextBuffer.append(' ');
-        contextBuffer.append(getContextDocBase());
-        contextBuffer.append(' ');
-        contextBuffer.append(getContextWorkDir());
-        contextBuffer.append(" />\n");
-
-        String context = contextBuffer.toString();
-        if (getWebClassPathEntries() != null || getMavenClasspath()) {
-
-            context = this.addLoaderToContext(context);
-        }
-        if(getRedirectLogger()) {
-            context = this.addLoggerToContext(context);
-        }
-        if(!(getExtraInfo().equals(""))) {
-            context = this.addExtraInfoToContext(context);
-        }
-
-        return context;
-
-    }
-
-    private String updateContextDefinition(String context) {
-    	String ctx = context;
-
-        // if reloadable param not set
-        int reloadableIndex = ctx.indexOf("reloadable");
-        if(reloadableIndex == -1) {
-            ctx = this.addReloadableToContext(ctx);
+    private void updateContextDefinition(ContextXmlEditor editor) throws IOException {
+        editor.setAttribute("reloadable", String.valueOf(getReloadable()));
+        editor.setAttribute("docBase", getContextDocBase());
+        editor.setAttribute("workDir", getContextWorkDir());
+
+        boolean webClassPath = (getWebClassPathEntries() != null) || getMavenClasspath();
+        if(webClassPath && isResourcesClasspathApplied()) {
+            editor.removeChild("Loader");
+            editor.setBlock(resourcesBeginTag, resourcesEndTag, getContextResources());
+        } else if(webClassPath) {
+            editor.setChild("Loader", getContextWebAppClassLoader());
+            editor.removeBlock(resourcesBeginTag, resourcesEndTag);
         } else {
-            ctx = this.updateReloadableInContext(ctx);
+            editor.removeChild("Loader");
+            editor.removeBlock(resourcesBeginTag, resourcesEndTag);
         }
 
-        // update docBase if set
-        int docBaseIndex = ctx.indexOf("docBase");
-        if(docBaseIndex == -1) {
-            ctx = this.addDocBaseToContext(ctx);
+        if(getRedirectLogger()) {
+            editor.setChild("Logger", getContextLogger());
         } else {
-            ctx = this.updateDocBaseInContext(ctx);
+            editor.removeChild("Logger");
         }
 
-        // if work param not set
-        int workIndex = ctx.indexOf("workDir");
-        if(workIndex == -1) {
-            ctx = this.addWorkToContext(ctx);
+        if(getExtraInfo().equals("")) {
+            editor.removeBlock(extraBeginTag, extraEndTag);
         } else {
-            ctx = this.updateWorkInContext(ctx);
-        }
-
-        // if loader not set
-        int loaderIndex = ctx.indexOf("<Loader");
-        if ((loaderIndex == -1) && (getWebClassPathEntries() != null) || getMavenClasspath()) {
-            ctx = this.addLoaderToContext(ctx);
-        }
-        if ((loaderIndex != -1) && (getWebClassPathEntries() == null) && !getMavenClasspath()) {
-            ctx = this.removeLoaderInContext(ctx);
-        }
-        if ((loaderIndex != -1) && (getWebClassPathEntries() != null) || getMavenClasspath()) {
-            ctx = this.updateLoaderInContext(ctx);
-        }
-
-
-        // if logger not set
-        int loggerIndex = ctx.indexOf("<Logger");
-        if((loggerIndex == -1) && getRedirectLogger()) {
-            ctx = this.addLoggerToContext(ctx);
-        }
-        if((loggerIndex != -1) && !getRedirectLogger()) {
-            ctx = this.removeLoggerInContext(ctx);
-        }
-        if((loggerIndex != -1) && getRedirectLogger()) {
-            ctx = this.updateLoggerInContext(ctx);
-        }
-
-        // Extra info
-        int extraInfoIndex = ctx.indexOf(extraBeginTag);
-        if((extraInfoIndex == -1) && !(getExtraInfo().equals(""))) {
-            ctx = this.addExtraInfoToContext(ctx);
-        }
-        if((extraInfoIndex != -1) && getExtraInfo().equals("")) {
-            ctx = this.removeExtraInfoInContext(ctx);
-        }
-        if((extraInfoIndex != -1) && !(getExtraInfo().equals(""))) {
-            ctx = this.updateExtraInfoInContext(ctx);
+            editor.setBlock(extraBeginTag, extraEndTag, getExtraInfo());
         }
-        return ctx;
     }
 
     private void updateContextDefinitionInFile(File xmlFile) throws IOException {
         String xml = FileUtil.readTextFile(xmlFile);
-        int contextTagIndex = this.getContextTagIndex(xml);
+        ContextXmlEditor editor = new ContextXmlEditor(xml, getWebPath());
 
         // If context doesn't exist do nothing
-        if( contextTagIndex == -1) {
+        if(!editor.hasContext()) {
             return;
         }
 
-        // Get context
-        int endContextTagIndex = xml.indexOf(">",contextTagIndex);
-        if(xml.charAt(endContextTagIndex-1) != '/') {
-            endContextTagIndex = xml.indexOf(this.getContextEndTag(), contextTagIndex) + this.getContextEndTag().length() -1;
+        this.updateContextDefinition(editor);
+        String newXml = editor.getXml();
+        if(!newXml.equals(xml)) {
+            FileUtil.toTextFile(xmlFile, newXml);
         }
-        String context = xml.substring(contextTagIndex, endContextTagIndex+1);
-
-        StringBuffer out = new StringBuffer(xml.substring(0, contextTagIndex));
-        out.append(this.updateContextDefinition(context));
-        out.append(xml.substring(endContextTagIndex+1));
-        FileUtil.toTextFile(xmlFile, out.toString());
-    }
-
-
-    private String addDocBaseToContext(String context) {
-        int reloadableIndex = context.indexOf(getContextReloadable());
-        int firstDoubleQuoteIndex = context.indexOf('"', reloadableIndex) + 1;
-        int docBaseIndex = context.indexOf('"',firstDoubleQuoteIndex) + 1;
-        StringBuffer out = new StringBuffer(context.substring(0, docBaseIndex));
-        out.append(' ');
-        out.append(getContextDocBase());
-        out.append(' ');
-        out.append(context.substring(docBaseIndex, context.length()));
-
-        return out.toString();
-    }
-
-    private String updateDocBaseInContext(String context) {
-        int docBaseIndex = context.indexOf("docBase");
-        int startIndex = context.indexOf('"', docBaseIndex);
-        int endIndex = context.indexOf('"',startIndex+1);
-        StringBuffer out = new StringBuffer(context.substring(0, docBaseIndex));
-        out.append(getContextDocBase());
-        out.append(context.substring(endIndex+1, context.length()));
-
-        return out.toString();
-    }
-
-    private String getContextReloadable(){
-        return ("reloadable=" + '"' + getReloadable() + '"');
-    }
-
-    private String addReloadableToContext(String context) {
-        int pathIndex = context.indexOf(getContextPath());
-        int firstDoubleQuoteIndex = context.indexOf('"', pathIndex) + 1;
-        int reloadableIndex = context.indexOf('"',firstDoubleQuoteIndex) + 1;
-
-        StringBuffer out = new StringBuffer(context.substring(0, reloadableIndex));
-        out.append(' ');
-        out.append(getContextReloadable());
-        out.append(' ');
-        out.append(context.substring(reloadableIndex, context.length()));
-
-        return out.toString();
-    }
-
-    private String updateReloadableInContext(String context){
-        int reloadableIndex = context.indexOf("reloadable");
-        int startIndex = context.indexOf('"',reloadableIndex);
-        int endIndex = context.indexOf('"',startIndex+1);
-        StringBuffer out = new StringBuffer(context.substring(0,reloadableIndex));
-        out.append(getContextReloadable());
-        out.append(context.substring(endIndex+1,context.length()));
-
-        return out.toString();
     }
 
-    private String addWorkToContext(String context) {
-        int docBaseIndex = context.indexOf("docBase");
-        int firstDoubleQuoteIndex = context.indexOf('"',docBaseIndex) + 1;
-        int workIndex = context.indexOf('"', firstDoubleQuoteIndex) + 1;
-        StringBuffer out = new StringBuffer(context.substring(0, workIndex));
-        out.append(' ');
-        out.append(getContextWorkDir());
-        out.append(' ');
-        out.append(context.substring(workIndex, context.length()));
-
-        return out.toString();
-    }
-
-    private String updateWorkInContext(String context) {
-        int workDirIndex = context.indexOf("workDir");
-        int startIndex = context.indexOf('"', workDirIndex);
-        int endIndex = context.indexOf('"',startIndex+1);
-        StringBuffer out = new StringBuffer(context.substring(0, workDirIndex));
-        out.append(getContextWorkDir());
-        out.append(context.substring(endIndex+1, context.length()));
-
-        return out.toString();
-    }
-
-    // Add </Context> instead of  />, and \n if needed
-    private String formatContextEndTag(String context) {
-    	String ctx = context;
-        int endContextStartTagIndex = ctx.indexOf(">");
-        StringBuffer newContext = new StringBuffer();
-        if(ctx.charAt(endContextStartTagIndex-1) == '/') {
-            newContext.append(ctx.substring(0, endContextStartTagIndex-1));
-            newContext.append(">");
-            newContext.append("\n");
-            newContext.append(getContextEndTag());
-            newContext.append("\n");
-            ctx = newContext.toString();
-            endContextStartTagIndex--;
+    private String getContextDocBase() {
+        if(getRootDirFolder() == null) {
+            return project.getLocation().toOSString();
         } else {
-            int endContextTagIndex = ctx.indexOf(getContextEndTag());
-            if(ctx.charAt(endContextTagIndex-1) != '\n') {
-                newContext.append(ctx.substring(0,endContextTagIndex));
-                newContext.append("\n");
-                newContext.append(ctx.substring(endContextTagIndex));
-            } else {
-                return ctx;
-            }
+            return this.getRootDirFolder().getLocation().toOSString();
         }
-
-        return newContext.toString();
     }
 
-    private String addLoaderToContext(String context) {
-        String ctx = this.formatContextEndTag(context);
-        int endContextStartTagIndex = ctx.indexOf(">");
-        int loaderIndex = endContextStartTagIndex + 1;
-        StringBuffer out = new StringBuffer(ctx.substring(0, loaderIndex));
-        out.append(getContextWebAppClassLoader());
-        out.append(ctx.substring(loaderIndex, ctx.length()));
-
-        return out.toString();
+    /**
+     * Value of workDir attribute, depends on Tomcat version
+     */
+    private String getContextWorkDir() {
+        String workFolderLocation = this.getWorkFolder().getLocation().toOSString();
+        String attribute = TomcatLauncherPlugin.getDefault().getTomcatBootstrap().getContextWorkDir(workFolderLocation);
+        return attribute.substring(attribute.indexOf('"') + 1, attribute.lastIndexOf('"'));
     }
 
-    private String updateLoaderInContext(String context) {
-        String ctx = this.formatContextEndTag(context);
-        int endContextStartTagIndex = ctx.indexOf(">");
-        int startIndex = ctx.indexOf("<Loader", endContextStartTagIndex);
-        if(ctx.charAt(startIndex-1) == '\t') {
-            startIndex--;
-        }
-        if(ctx.charAt(startIndex-1) == '\n') {
-            startIndex--;
-        }
-        int endIndex = ctx.indexOf("/>",startIndex+1)+1;
-        StringBuffer out = new StringBuffer(ctx.substring(0, startIndex));
-        out.append(getContextWebAppClassLoader());
-        out.append(ctx.substring(endIndex+1, ctx.length()));
-
-        return out.toString();
+    private String getContextWebAppClassLoader() {
+        return "<Loader className=\"org.apache.catalina.loader.DevLoader\" reloadable=\"true\" debug=\"1\" useSystemClassLoaderAsParent=\"false\" />";
     }
 
-    private String removeLoaderInContext(String context) {
-        int endContextStartTagIndex = context.indexOf(">");
-        int startIndex = context.indexOf("<Loader", endContextStartTagIndex);
-        if(context.charAt(startIndex-1) == '\t') {
-            startIndex--;
-        }
-        if(context.charAt(startIndex-1) == '\n') {
-            startIndex--;
+    /**
+     * Resources element mounting the webclasspath in the web application:
+     * directories in /WEB-INF/classes and jars in /WEB-INF/lib, so lookups go
+     * through the cache of Tomcat resources. Entries which are in the docBase
+     * or do not exist are left out, Tomcat does not start with a missing base.
+     */
+    private String getContextResources() throws IOException {
+        List<String> classpath;
+        try {
+            classpath = TomcatLauncherPlugin.getDefault().getTomcatBootstrap().getWebClassPath(this);
+        } catch (CoreException e) {
+            IOException ioe = new IOException("Unable to resolve webclasspath of " + getProject().getName());
+            ioe.initCause(e);
+            throw ioe;
+        }
+
+        String docBase = new File(getContextDocBase()).getAbsolutePath() + File.separator;
+        Set<String> jarNames = new HashSet<String>();
+        StringBuffer resources = new StringBuffer("<Resources>");
+        if (classpath != null) {
+            for (String entry : classpath) {
+                File file = new File(entry).getAbsoluteFile();
+                if (!file.exists() || (file.getPath() + File.separator).startsWith(docBase)) {
+                    continue;
+                }
+                String base = ContextXmlEditor.escape(file.getPath(), '"');
+                resources.append("\n\t<PostResources className=\"org.apache.catalina.webresources.");
+                if (file.isDirectory()) {
+                    resources.append("DirResourceSet\" base=\"" + base + "\" webAppMount=\"/WEB-INF/classes\"");
+                } else if (file.getName().endsWith(".jar") && jarNames.add(file.getName())) {
+                    String mount = ContextXmlEditor.escape("/WEB-INF/lib/" + file.getName(), '"');
+                    resources.append("FileResourceSet\" base=\"" + base + "\" webAppMount=\"" + mount + "\"");
+                } else {
+                    // same name as a jar already mounted, or not a jar: its content is mounted
+                    resources.append("JarResourceSet\" base=\"" + base + "\" webAppMount=\"/WEB-INF/classes\"");
+                }
+                resources.append(" />");
+            }
         }
-        int endIndex = context.indexOf("/>",startIndex+1)+1;
-        StringBuffer out = new StringBuffer(context.substring(0, startIndex));
-        out.append(context.substring(endIndex+1, context.length()));
-
-        return out.toString();
+        resources.append("\n</Resources>");
+        return resources.toString();
     }
 
-    private String addLoggerToContext(String context) {
-        String ctx = this.formatContextEndTag(context);
-        int endContextStartTagIndex = ctx.indexOf(">");
-        int loggerIndex = endContextStartTagIndex + 1;
-        StringBuffer out = new StringBuffer(ctx.substring(0, loggerIndex));
-        out.append(getContextLogger());
-        out.append(ctx.substring(loggerIndex, ctx.length()));
-
-        return out.toString();
+    /**
+     * Resources elements are only understood by Tomcat 8 and later
+     */
+    static boolean isResourcesSupported() {
+        String version = TomcatLauncherPlugin.getDefault().getTomcatVersion();
+        return version.equals(TomcatLauncherPlugin.TOMCAT_VERSION8) || version.equals(TomcatLauncherPlugin.TOMCAT_VERSION9);
     }
 
-    private String updateLoggerInContext(String context) {
-        int endContextStartTagIndex = context.indexOf(">");
-        int startIndex = context.indexOf("<Logger", endContextStartTagIndex);
-        if(context.charAt(startIndex-1) == '\t') {
-            startIndex--;
-        }
-        if(context.charAt(startIndex-1) == '\n') {
-            startIndex--;
-        }
-        int endIndex = context.indexOf("/>",startIndex)+1;
-        StringBuffer out = new StringBuffer(context.substring(0, startIndex));
-        out.append(getContextLogger());
-        out.append(context.substring(endIndex+1, context.length()));
-
-        return out.toString();
+    private String getContextLogger() {
+        return "<Logger className=\"org.apache.catalina.logger.SystemOutLogger\" verbosity=\"4\" timestamp=\"true\"/>";
     }
 
-    private String removeLoggerInContext(String context) {
-        int endContextStartTagIndex = context.indexOf(">");
-        int startIndex = context.indexOf("<Logger", endContextStartTagIndex);
-        if(context.charAt(startIndex-1) == '\t') {
-            startIndex--;
-        }
-        if(context.charAt(startIndex-1) == '\n') {
-            startIndex--;
-        }
-        int endIndex = context.indexOf("/>",startIndex)+1;
-        StringBuffer out = new StringBuffer(context.substring(0, startIndex));
-        out.append(context.substring(endIndex+1, context.length()));
-
-        return out.toString();
+    public void exportToWar() throws IOException {
+        exportToWar(new NullProgressMonitor());
     }
 
+    /**
+     * Export to the WAR file set in project properties, see {@link ExportToWarJob}
+     * to do it in background
+     *
+     * @return the zipper used, with statistics of the export
+     */
+    public Zipper exportToWar(IProgressMonitor monitor) throws IOException {
 
-    private String addExtraInfoToContext(String context) {
-        String ctx = this.formatContextEndTag(context);
-        int endContextStartTagIndex = ctx.indexOf(">");
-        int extraInfoIndex = endContextStartTagIndex + 1;
-        StringBuffer out = new StringBuffer(ctx.substring(0, extraInfoIndex));
-        out.append('\n');
-        out.append(extraBeginTag);
-        out.append('\n');
-        out.append(getExtraInfo());
-        out.append('\n');
-        out.append(extraEndTag);
-        out.append(ctx.substring(extraInfoIndex, ctx.length()));
-
-        return out.toString();
-    }
+        File warFile = new File(this.getWarLocation());
+        File directory = getExportedDirectory();
 
-    private String updateExtraInfoInContext(String context) {
-        int endContextStartTagIndex = context.indexOf(">");
-        int startIndex = context.indexOf(extraBeginTag, endContextStartTagIndex);
-        if(context.charAt(startIndex-1) == '\t') {
-            startIndex--;
-        }
-        if(context.charAt(startIndex-1) == '\n') {
-            startIndex--;
-        }
-        int extraEndTagStartIndex = context.indexOf(extraEndTag,startIndex);
-        StringBuffer out = new StringBuffer(context.substring(0, startIndex));
-        out.append('\n');
-        out.append(extraBeginTag);
-        out.append('\n');
-        out.append(getExtraInfo());
-        out.append('\n');
-        out.append(context.substring(extraEndTagStartIndex, context.length()));
-
-        return out.toString();
-    }
-
-    private String removeExtraInfoInContext(String context) {
-        int endContextStartTagIndex = context.indexOf(">");
-        int startIndex = context.indexOf(extraBeginTag, endContextStartTagIndex);
-        if(context.charAt(startIndex-1) == '\t') {
-            startIndex--;
-        }
-        if(context.charAt(startIndex-1) == '\n') {
-            startIndex--;
+        TomcatProjectZipper zipper = new TomcatProjectZipper(warFile, directory, getExportSource());
+        zipper.getExcludeRules().addFile(this.getProject().getLocation().append(ExcludeRules.IGNORE_FILENAME).toFile());
+        String compression = getWarCompression();
+        if (compression.equals(WAR_COMPRESSION_FAST)) {
+            zipper.getCompressionPolicy().setLevel(Deflater.BEST_SPEED);
+        } else if (compression.equals(WAR_COMPRESSION_SMALL)) {
+            zipper.getCompressionPolicy().setLevel(Deflater.BEST_COMPRESSION);
         }
-        int extraEndTagStartIndex = context.indexOf(extraEndTag,startIndex);
-        StringBuffer out = new StringBuffer(context.substring(0, startIndex));
-        int endIndex = extraEndTagStartIndex + extraEndTag.length();
-        out.append(context.substring(endIndex, context.length()));
-
-        return out.toString();
-    }
-
-    private String getContextStartTag() {
-        return ("<Context");
-    }
-
-    private String getContextPath() {
-        return ("path=" + '"' + getWebPath() + '"');
+        zipper.setReproducible(getWarReproducible());
+        zipper.setReportWritten(true);
+        zipper.zip(monitor);
+        TomcatLauncherPlugin.log(IStatus.INFO, zipper.getSummary());
+        return zipper;
     }
 
-    private String getContextDocBase() {
-        String docBaseLocation = "";
-        if(getRootDirFolder() == null) {
-            docBaseLocation = project.getLocation().toOSString();
-        } else {
-            docBaseLocation = this.getRootDirFolder().getLocation().toOSString();
+    /**
+     * Mirror the web application into the deploy directory set in project properties,
+     * only changed files are copied, see {@link DeployExplodedJob} to do it in background
+     *
+     * @return the sync used, with statistics of the deploy
+     */
+    public DirectorySync deployExploded(IProgressMonitor monitor) throws IOException {
+        DirectorySync sync = new DirectorySync(getExportedDirectory(), new File(this.getDeployDir()));
+        ExcludeRules rules = sync.getExcludeRules();
+        TomcatProjectZipper.addDefaultRules(rules);
+        rules.addFile(this.getProject().getLocation().append(ExcludeRules.IGNORE_FILENAME).toFile());
+        if (!getExportSource()) {
+            rules.add("*.java");
         }
-        return ("docBase=" + '"' + docBaseLocation + '"');
-    }
-
-    private String getContextWorkDir() {
-        String workFolderLocation = this.getWorkFolder().getLocation().toOSString();
-        return (TomcatLauncherPlugin.getDefault().getTomcatBootstrap().getContextWorkDir(workFolderLocation));
+        sync.setHardLinks(getDeployHardLinks());
+        sync.sync(monitor);
+        TomcatLauncherPlugin.log(IStatus.INFO, sync.getSummary());
+        return sync;
     }
 
-    private String getContextWebAppClassLoader() {
-        return "\n\t<Loader className=\"org.apache.catalina.loader.DevLoader\" reloadable=\"true\" debug=\"1\" useSystemClassLoaderAsParent=\"false\" />";
-    }
-
-    private String getContextLogger() {
-        return "\n\t<Logger className=\"org.apache.catalina.logger.SystemOutLogger\" verbosity=\"4\" timestamp=\"true\"/>";
-    }
-
-
-    private String getContextEndTag() {
-        return "</Context>";
-
-    }
-
-    public void exportToWar() throws IOException {
-
-        File warFile = new File(this.getWarLocation());
-
-        File directory = null;
+    /**
+     * @return directory exported to WAR or deployed, the root dir if set
+     */
+    private File getExportedDirectory() {
         if(getRootDirFolder() == null) {
-            directory = this.getProject().getLocation().toFile();
-        } else {
-            directory = this.getRootDirFolder().getLocation().toFile();
+            return this.getProject().getLocation().toFile();
         }
-
-        Zipper zipper = new TomcatProjectZipper(warFile, directory, getExportSource());
-        zipper.zip();
+        return this.getRootDirFolder().getLocation().toFile();
     }
 
     /**
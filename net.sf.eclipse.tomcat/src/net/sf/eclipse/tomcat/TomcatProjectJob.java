@@ -0,0 +1,73 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.ui.progress.IProgressConstants;
+
+/**
+ * Base of the user jobs run on a Tomcat project : the summary returned by
+ * {@link #execute(IProgressMonitor)} is the message of the job result, kept in
+ * the Progress view, a failure is reported by the job status and canceling ends
+ * the job quietly.
+ */
+public abstract class TomcatProjectJob extends Job {
+
+	protected final TomcatProject project;
+
+	protected TomcatProjectJob(String nameKey, TomcatProject project) {
+		super(TomcatLauncherPlugin.getResourceString(nameKey) + " " + project.getProject().getName());
+		this.project = project;
+		setUser(true);
+		// the summary stays in the Progress view once the job is done
+		setProperty(IProgressConstants.KEEP_PROPERTY, Boolean.TRUE);
+	}
+
+	/**
+	 * @return summary of what was done
+	 * @throws OperationCanceledException when the monitor is canceled
+	 */
+	protected abstract String execute(IProgressMonitor monitor) throws Exception;
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		try {
+			String summary = execute(monitor);
+			return new Status(IStatus.OK, TomcatLauncherPlugin.PLUGIN_ID, IStatus.OK,
+					TomcatLauncherPlugin.getResourceString("msg.action.succeeded") + "\n" + summary, null);
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		} catch (Exception e) {
+			return new Status(IStatus.ERROR, TomcatLauncherPlugin.PLUGIN_ID, IStatus.ERROR,
+					TomcatLauncherPlugin.getResourceString("msg.action.failed") + "\n" + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Jobs belong to the family of their class, e.g. ExportToWarJob.class
+	 */
+	@Override
+	public boolean belongsTo(Object family) {
+		return family == getClass();
+	}
+}
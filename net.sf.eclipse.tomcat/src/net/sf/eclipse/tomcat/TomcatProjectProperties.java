@@ -0,0 +1,275 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.QualifiedName;
+
+/**
+ * Immutable snapshot of the settings stored in the .tomcatplugin file of a project.
+ *
+ * The file is parsed once, the snapshot is kept in memory until
+ * {@link TomcatProjectPropertiesListener} sees the file change.
+ */
+public final class TomcatProjectProperties {
+
+    static final String FILENAME = ".tomcatplugin";
+
+    private static final String KEY_WEBPATH = "webPath";
+    private static final String KEY_UPDATEXML = "updateXml";
+    private static final String KEY_EXPORTSOURCE = "exportSource";
+    private static final String KEY_RELOADABLE = "reloadable";
+    private static final String KEY_REDIRECTLOGGER = "redirectLogger";
+    private static final String KEY_WARLOCATION = "warLocation";
+    private static final String KEY_WARCOMPRESSION = "warCompression";
+    private static final String KEY_WARREPRODUCIBLE = "warReproducible";
+    private static final String KEY_DEPLOYDIR = "deployDir";
+    private static final String KEY_DEPLOYHARDLINKS = "deployHardLinks";
+    private static final String KEY_ROOTDIR = "rootDir";
+    private static final String KEY_WORKDIR = "workDir";
+    private static final String KEY_EXTRAINFO = "extraInfo";
+    private static final String KEY_SMARTMAVENCLASSPATH = "mavenClasspath";
+    private static final String KEY_RESOURCESCLASSPATH = "resourcesClasspath";
+
+    private static final ConcurrentMap<IProject, TomcatProjectProperties> cache = new ConcurrentHashMap<IProject, TomcatProjectProperties>();
+    /** incremented by each {@link #invalidate(IProject)}, before the cached settings are removed */
+    private static final AtomicLong invalidations = new AtomicLong();
+
+    private final String webPath;
+    private final String warLocation;
+    private final String warCompression;
+    private final String deployDir;
+    private final String rootDir;
+    private final String workDir;
+    private final String extraInfo;
+    private final boolean updateXml;
+    private final boolean exportSource;
+    private final boolean warReproducible;
+    private final boolean deployHardLinks;
+    private final boolean reloadable;
+    private final boolean redirectLogger;
+    private final boolean mavenClasspath;
+    private final boolean resourcesClasspath;
+    private final List<String> webClassPathEntries;
+
+    private TomcatProjectProperties(IProject project, String content) {
+        this.webPath = readProperty(project, content, KEY_WEBPATH);
+        this.warLocation = readProperty(project, content, KEY_WARLOCATION);
+        this.warCompression = readProperty(project, content, KEY_WARCOMPRESSION);
+        this.deployDir = readProperty(project, content, KEY_DEPLOYDIR);
+        this.rootDir = readProperty(project, content, KEY_ROOTDIR);
+        this.workDir = readProperty(project, content, KEY_WORKDIR);
+        this.extraInfo = decode(readProperty(project, content, KEY_EXTRAINFO));
+        this.updateXml = Boolean.parseBoolean(readProperty(project, content, KEY_UPDATEXML));
+        this.exportSource = Boolean.parseBoolean(readProperty(project, content, KEY_EXPORTSOURCE));
+        this.warReproducible = Boolean.parseBoolean(readProperty(project, content, KEY_WARREPRODUCIBLE));
+        this.deployHardLinks = Boolean.parseBoolean(readProperty(project, content, KEY_DEPLOYHARDLINKS));
+        this.mavenClasspath = Boolean.parseBoolean(readProperty(project, content, KEY_SMARTMAVENCLASSPATH));
+        this.resourcesClasspath = Boolean.parseBoolean(readProperty(project, content, KEY_RESOURCESCLASSPATH));
+
+        // reloadable defaults to true, redirectLogger to false
+        String reloadableProperty = readProperty(project, content, KEY_RELOADABLE);
+        this.reloadable = reloadableProperty.equals("") || Boolean.parseBoolean(reloadableProperty);
+        this.redirectLogger = Boolean.parseBoolean(readProperty(project, content, KEY_REDIRECTLOGGER));
+
+        WebClassPathEntries entries = content == null ? null : WebClassPathEntries.xmlUnmarshal(content);
+        if (entries == null) {
+            this.webClassPathEntries = null;
+        } else {
+            List<String> list = new ArrayList<String>(entries.size());
+            for (int i = 0; i < entries.size(); i++) {
+                list.add(entries.getWebClassPathEntry(i));
+            }
+            this.webClassPathEntries = list;
+        }
+    }
+
+    /**
+     * Return the settings of project, reading its .tomcatplugin file only
+     * if no snapshot is cached yet
+     */
+    public static TomcatProjectProperties get(IProject project) {
+        TomcatProjectProperties result = cache.get(project);
+        if (result == null) {
+            long before = invalidations.get();
+            result = load(project);
+            cache.put(project, result);
+            if (invalidations.get() != before) {
+                // the file may have changed while it was read, do not keep what was read
+                cache.remove(project, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forget the cached settings of project, next call to {@link #get(IProject)} will
+     * read the .tomcatplugin file again
+     */
+    public static void invalidate(IProject project) {
+        invalidations.incrementAndGet();
+        cache.remove(project);
+    }
+
+    /**
+     * Decode a value encoded by URLEncoder.encode(String), with the default charset
+     */
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, Charset.defaultCharset().name());
+        } catch (UnsupportedEncodingException e) {
+            // the default charset is always supported
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    private static TomcatProjectProperties load(IProject project) {
+        String content = null;
+        IPath location = project.getLocation();
+        if (location != null) {
+            File file = location.append(FILENAME).toFile();
+            if (file.exists()) {
+                try {
+                    content = FileUtil.readTextFile(file);
+                } catch (IOException e) {
+                    TomcatLauncherPlugin.log(e);
+                }
+            }
+        }
+        return new TomcatProjectProperties(project, content);
+    }
+
+    /**
+     * Properties missing in .tomcatplugin are searched in project persistent properties
+     * (used by older versions of the plugin)
+     */
+    private static String readProperty(IProject project, String content, String key) {
+        String result = null;
+        if (content != null) {
+            result = extractProperty(content, key);
+        }
+        if (result == null) {
+            try {
+                result = project.getPersistentProperty(new QualifiedName("TomcatProject", key));
+            } catch (Exception e) {
+                TomcatLauncherPlugin.log(e);
+            }
+        }
+
+        if (result == null) {
+            result = "";
+        }
+        return result;
+    }
+
+    private static String extractProperty(String content, String property) {
+        int startTagIdx = content.indexOf("<" + property + ">");
+        if (startTagIdx == -1) {
+            return null;
+        }
+        int endTagIdx = content.indexOf("</" + property + ">", startTagIdx);
+        if (endTagIdx == -1) {
+            return null;
+        }
+        return content.substring(startTagIdx + property.length() + 2, endTagIdx);
+    }
+
+    public String getWebPath() {
+        return webPath;
+    }
+
+    public String getWarLocation() {
+        return warLocation;
+    }
+
+    public String getWarCompression() {
+        return warCompression;
+    }
+
+    public String getDeployDir() {
+        return deployDir;
+    }
+
+    public String getRootDir() {
+        return rootDir;
+    }
+
+    public String getWorkDir() {
+        return workDir;
+    }
+
+    public String getExtraInfo() {
+        return extraInfo;
+    }
+
+    public boolean getUpdateXml() {
+        return updateXml;
+    }
+
+    public boolean getExportSource() {
+        return exportSource;
+    }
+
+    public boolean getWarReproducible() {
+        return warReproducible;
+    }
+
+    public boolean getDeployHardLinks() {
+        return deployHardLinks;
+    }
+
+    public boolean getReloadable() {
+        return reloadable;
+    }
+
+    public boolean getRedirectLogger() {
+        return redirectLogger;
+    }
+
+    public boolean getMavenClasspath() {
+        return mavenClasspath;
+    }
+
+    public boolean getResourcesClasspath() {
+        return resourcesClasspath;
+    }
+
+    /**
+     * Return a new copy of the webclasspath entries, callers may modify it.
+     * Return null if DevLoader is not activated
+     */
+    public WebClassPathEntries getWebClassPathEntries() {
+        if (webClassPathEntries == null) {
+            return null;
+        }
+        return new WebClassPathEntries(new ArrayList<String>(webClassPathEntries));
+    }
+}
@@ -0,0 +1,70 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * Drop cached {@link TomcatProjectProperties} when a .tomcatplugin file
+ * is changed, or when its project is closed, deleted or moved.
+ */
+public class TomcatProjectPropertiesListener implements IResourceChangeListener {
+
+	public void resourceChanged(IResourceChangeEvent event) {
+		IResourceDelta delta = event.getDelta();
+		if (delta == null) {
+			return;
+		}
+
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta child) throws CoreException {
+					IResource resource = child.getResource();
+					switch (resource.getType()) {
+					case IResource.ROOT:
+						return true;
+					case IResource.PROJECT:
+						if (child.getKind() != IResourceDelta.CHANGED || (child.getFlags() & IResourceDelta.OPEN) != 0) {
+							TomcatProjectProperties.invalidate((IProject) resource);
+							return false;
+						}
+						return true;
+					case IResource.FILE:
+						if (resource.getName().equals(TomcatProjectProperties.FILENAME)) {
+							TomcatProjectProperties.invalidate(resource.getProject());
+						}
+						return false;
+					default:
+						// .tomcatplugin is stored at project root, no need to visit folders
+						return false;
+					}
+				}
+			});
+		} catch (CoreException ex) {
+			TomcatLauncherPlugin.log(ex);
+		}
+	}
+
+}
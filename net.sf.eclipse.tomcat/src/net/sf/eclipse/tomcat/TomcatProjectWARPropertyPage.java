@@ -22,6 +22,7 @@
  * All Rights Reserved.
  */
 import java.io.File;
+import java.util.Arrays;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.swt.SWT;
@@ -30,8 +31,10 @@ import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
+import org.eclipse.swt.widgets.Combo;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
+import org.eclipse.swt.widgets.DirectoryDialog;
 import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Text;
@@ -39,11 +42,19 @@ import org.eclipse.swt.widgets.Text;
 public class TomcatProjectWARPropertyPage implements TomcatPluginResources {
 
 	private Button exportSourceCheck;
+	private Button warReproducibleCheck;
+	private Button deployHardLinksCheck;
 	private Text warLocationText;
+	private Text deployDirText;
+	private Combo warCompressionCombo;
 	private final TomcatProjectPropertyPage page;
 
 	private static final int TEXT_FIELD_WIDTH = 200;
 
+	/** values of warCompression, in the order of the combo items */
+	private static final String[] WAR_COMPRESSION_VALUES = {
+		"", TomcatProject.WAR_COMPRESSION_FAST, TomcatProject.WAR_COMPRESSION_SMALL };
+
 	public TomcatProjectWARPropertyPage(TomcatProjectPropertyPage page) {
 		this.page = page;
 	}
@@ -56,6 +67,7 @@ public class TomcatProjectWARPropertyPage implements TomcatPluginResources {
 		composite.setLayout(new GridLayout());
 
 		createWarLocationGroup(composite);
+		createDeployDirGroup(composite);
 
 		return composite;
 	}
@@ -101,6 +113,62 @@ public class TomcatProjectWARPropertyPage implements TomcatPluginResources {
 		exportSourceCheck.setLayoutData(data);
 		exportSourceCheck.setEnabled(true);
 		exportSourceCheck.setSelection(this.getExportSource());
+
+		Label warCompressionLabel = new Label(warLocationGroup, SWT.NONE);
+		warCompressionLabel.setText(WIZARD_PROJECT_WARCOMPRESSION_LABEL);
+		warCompressionCombo = new Combo(warLocationGroup, SWT.DROP_DOWN | SWT.READ_ONLY);
+		warCompressionCombo.setItems(new String[] {
+			WIZARD_PROJECT_WARCOMPRESSION_DEFAULT, WIZARD_PROJECT_WARCOMPRESSION_FAST, WIZARD_PROJECT_WARCOMPRESSION_SMALL });
+		warCompressionCombo.select(Math.max(0, Arrays.asList(WAR_COMPRESSION_VALUES).indexOf(this.getWarCompression())));
+		data = new GridData();
+		data.horizontalSpan = 2;
+		warCompressionCombo.setLayoutData(data);
+
+		warReproducibleCheck = new Button(warLocationGroup, SWT.CHECK | SWT.LEFT);
+		warReproducibleCheck.setText(WIZARD_PROJECT_WARREPRODUCIBLE_LABEL);
+		data = new GridData();
+		data.horizontalSpan = 3;
+		warReproducibleCheck.setLayoutData(data);
+		warReproducibleCheck.setEnabled(true);
+		warReproducibleCheck.setSelection(this.getWarReproducible());
+	}
+
+	public void createDeployDirGroup(Composite parent) {
+		Composite deployDirGroup = new Composite(parent, SWT.NONE);
+		GridLayout layout = new GridLayout();
+		layout.numColumns = 3;
+		deployDirGroup.setLayout(layout);
+		deployDirGroup.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+
+		Label deployDirLabel = new Label(deployDirGroup, SWT.NONE);
+		deployDirLabel.setText(WIZARD_PROJECT_DEPLOYDIR_LABEL);
+
+		deployDirText = new Text(deployDirGroup, SWT.BORDER);
+		GridData data = new GridData(GridData.FILL_HORIZONTAL);
+		data.widthHint = TEXT_FIELD_WIDTH;
+		deployDirText.setLayoutData(data);
+		deployDirText.setText(this.getDeployDir());
+
+		Button browseButton = new Button(deployDirGroup, SWT.PUSH);
+		browseButton.setText(BROWSE_BUTTON_LABEL);
+		browseButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent evt) {
+				DirectoryDialog dialog = new DirectoryDialog(page.getShell());
+				dialog.setFilterPath(deployDirText.getText());
+				String dir = dialog.open();
+				if (dir != null) {
+					deployDirText.setText(dir);
+				}
+			}
+		});
+
+		deployHardLinksCheck = new Button(deployDirGroup, SWT.CHECK | SWT.LEFT);
+		deployHardLinksCheck.setText(WIZARD_PROJECT_DEPLOYHARDLINKS_LABEL);
+		data = new GridData();
+		data.horizontalSpan = 3;
+		deployHardLinksCheck.setLayoutData(data);
+		deployHardLinksCheck.setSelection(this.getDeployHardLinks());
 	}
 
 	protected String getWarLocation() {
@@ -116,6 +184,58 @@ public class TomcatProjectWARPropertyPage implements TomcatPluginResources {
 		return result;
 	}
 
+	protected String getWarCompression() {
+		String result = "";
+		try {
+			TomcatProject prj = page.getTomcatProject();
+			if (prj != null) {
+                result = prj.getWarCompression();
+            }
+		} catch (CoreException ex) {
+			// result = "";
+		}
+		return result;
+	}
+
+	protected boolean getWarReproducible() {
+		boolean result = false;
+		try {
+			TomcatProject prj = page.getTomcatProject();
+			if (prj != null) {
+                result = prj.getWarReproducible();
+            }
+		} catch (CoreException ex) {
+			// result = false;
+		}
+		return result;
+	}
+
+	protected String getDeployDir() {
+		String result = "";
+		try {
+			TomcatProject prj = page.getTomcatProject();
+			if (prj != null) {
+                result = prj.getDeployDir();
+            }
+		} catch (CoreException ex) {
+			// result = "";
+		}
+		return result;
+	}
+
+	protected boolean getDeployHardLinks() {
+		boolean result = false;
+		try {
+			TomcatProject prj = page.getTomcatProject();
+			if (prj != null) {
+                result = prj.getDeployHardLinks();
+            }
+		} catch (CoreException ex) {
+			// result = false;
+		}
+		return result;
+	}
+
 	protected boolean getExportSource() {
 		boolean result = false;
 		try {
@@ -137,6 +257,10 @@ public class TomcatProjectWARPropertyPage implements TomcatPluginResources {
 			TomcatProject prj = page.getTomcatProject();
 			prj.setWarLocation(warLocationText.getText());
 			prj.setExportSource(exportSourceCheck.getSelection());
+			prj.setWarCompression(WAR_COMPRESSION_VALUES[warCompressionCombo.getSelectionIndex()]);
+			prj.setWarReproducible(warReproducibleCheck.getSelection());
+			prj.setDeployDir(deployDirText.getText());
+			prj.setDeployHardLinks(deployHardLinksCheck.getSelection());
 			prj.saveProperties();
 		} catch (Exception ex) {
 			TomcatLauncherPlugin.log(ex.getMessage());
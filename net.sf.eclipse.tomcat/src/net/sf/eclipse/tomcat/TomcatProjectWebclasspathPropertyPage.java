@@ -23,8 +23,10 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -61,9 +63,10 @@ public class TomcatProjectWebclasspathPropertyPage {
 	private static final String WEBAPP_CLASSPATH_FILENAME = ".webclasspath";
 	private CheckedListDialogField cpList;
 	private Button mavenClassPathCheck;
+	private Button resourcesClassPathCheck;
 	private Button webClassPathCheck;
 	private WebClassPathEntries entries;
-	private ArrayList visitedProjects = new ArrayList();
+	private Set<String> visitedProjects = new HashSet<String>();
 
 	private TomcatProjectPropertyPage page;
 
@@ -82,16 +85,22 @@ public class TomcatProjectWebclasspathPropertyPage {
 
 	/** okay has been pressed */
 	public boolean performOk() {
-		List newSelection = cpList.getCheckedElements();
+		List<String> newSelection = new ArrayList<String>();
+		for (Object checked : cpList.getCheckedElements()) {
+			newSelection.add((String) checked);
+		}
 
 		try {
 			page.getTomcatProject().setMavenClasspath(mavenClassPathCheck.getSelection());
+			page.getTomcatProject().setResourcesClasspath(resourcesClassPathCheck.getSelection());
 			if (webClassPathCheck.getSelection()) {
 				page.getTomcatProject().setWebClassPathEntries(new WebClassPathEntries(newSelection));
 			} else {
 				page.getTomcatProject().setWebClassPathEntries(null);
 			}
 			page.getTomcatProject().saveProperties();
+			// a running DevLoader adds the entries selected
+			new UpdateWebClassPathJob(Collections.singleton(page.getTomcatProject().getProject().getName())).schedule();
 		} catch(Exception ex) {
 			TomcatLauncherPlugin.log(ex);
 			return false;
@@ -115,6 +124,14 @@ public class TomcatProjectWebclasspathPropertyPage {
 
     new Label(group, SWT.RIGHT).setText(" ");
 
+		resourcesClassPathCheck = new Button(group, SWT.CHECK | SWT.LEFT);
+		resourcesClassPathCheck.setText(TomcatPluginResources.PROPERTIES_PAGE_PROJECT_RESOURCESCLASSPATH_LABEL);
+		// older versions keep DevLoader whatever the setting
+		resourcesClassPathCheck.setEnabled(TomcatProject.isResourcesSupported());
+		resourcesClassPathCheck.setSelection(isResourcesClasspathActive());
+
+		new Label(group, SWT.RIGHT).setText(" ");
+
 		webClassPathCheck = new Button(group, SWT.CHECK | SWT.LEFT);
 		webClassPathCheck.setText(TomcatPluginResources.PROPERTIES_PAGE_PROJECT_ACTIVATE_DEVLOADER_LABEL);
 		webClassPathCheck.setEnabled(true);
@@ -199,8 +216,7 @@ public class TomcatProjectWebclasspathPropertyPage {
 			IClasspathEntry entry = entries[i];
 			if (entry.getEntryKind() == IClasspathEntry.CPE_PROJECT) {
 				String prjName = entry.getPath().lastSegment();
-				if(!visitedProjects.contains(prjName)) {
-					visitedProjects.add(prjName);
+				if(visitedProjects.add(prjName)) {
 					getClassPathEntries(getJavaProject().getJavaModel().getJavaProject(prjName), data);
 				}
 			} else if (entry.getEntryKind() == IClasspathEntry.CPE_LIBRARY) {
@@ -252,6 +268,18 @@ public class TomcatProjectWebclasspathPropertyPage {
 		}
 	}
 
+	private boolean isResourcesClasspathActive() {
+		try {
+			TomcatProject project = page.getTomcatProject();
+			if (project != null) {
+				return project.getResourcesClasspath();
+			}
+		} catch(CoreException coreEx) {
+			// ignore exception
+		}
+		return false;
+	}
+
   private boolean isMavenClasspathActive() {
     //		entries = null;
 		try {
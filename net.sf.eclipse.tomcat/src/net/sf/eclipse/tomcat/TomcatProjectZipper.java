@@ -20,11 +20,15 @@
 
 import java.io.File;
 import java.io.IOException;
-import java.util.StringTokenizer;
 
+/**
+ * Zip a Tomcat project to a WAR, excluding files as configured by
+ * project.warExport.exclude.* resources and the .warignore file of the project.
+ */
 public class TomcatProjectZipper extends Zipper {
 
 	private boolean acceptSource = false;
+	private final ExcludeRules excludeRules = new ExcludeRules();
 
 	/**
 	 * Constructor for TomcatProjectZipper.
@@ -37,48 +41,38 @@ public class TomcatProjectZipper extends Zipper {
 		throws IOException {
 			super(outputFile, directory);
 			this.acceptSource = acceptSource;
+			getCompressionPolicy().addStoredExtensions(TomcatPluginResources.PROJECT_WAREXPORT_STORED_EXTENSIONS);
+			addDefaultRules(excludeRules);
 	}
 
-	@Override
-	protected boolean acceptDir(File dir) {
-
-		if (dir.getName().equals("jsp")) {
-			if(dir.getParentFile().getName().equals("apache")) {
-				if(dir.getParentFile().getParentFile().getName().equals("org")) {
-					return false;
-				}
-			}
-		}
-
+	/**
+	 * Add rules excluding what is never exported : compiled JSPs and the files
+	 * configured by project.warExport.exclude.* resources
+	 */
+	static void addDefaultRules(ExcludeRules rules) {
+		rules.add("**/org/apache/jsp/");
+		rules.addDirectoryNames(TomcatPluginResources.PROJECT_WAREXPORT_EXCLUDE_DIRECTORIES);
+		rules.addFileNames(TomcatPluginResources.PROJECT_WAREXPORT_EXCLUDE_FILES);
+	}
 
-		String excludeString = TomcatPluginResources.PROJECT_WAREXPORT_EXCLUDE_DIRECTORIES;
-		StringTokenizer tokenizer = new StringTokenizer(excludeString, ";");
-		while (tokenizer.hasMoreTokens()) {
-			String eachDir = tokenizer.nextToken();
-			if (dir.getName().equals(eachDir)) {
-				return false;
-			}
-		}
+	/**
+	 * Rules are compiled once, add project specific ones before zipping
+	 */
+	public ExcludeRules getExcludeRules() {
+		return excludeRules;
+	}
 
-		return true;
+	@Override
+	protected boolean acceptDir(File dir) {
+		return !excludeRules.isExcluded(getEntryName(dir), true);
 	}
 
 	@Override
 	protected boolean acceptFile(File file) {
-
-		if (file.getName().endsWith(".java")) {
-			return acceptSource;
-		}
-
-		String excludeString = TomcatPluginResources.PROJECT_WAREXPORT_EXCLUDE_FILES;
-		StringTokenizer tokenizer = new StringTokenizer(excludeString, ";");
-		while (tokenizer.hasMoreTokens()) {
-			if (file.getName().equals(tokenizer.nextToken())) {
-				return false;
-			}
+		if (file.getName().endsWith(".java") && !acceptSource) {
+			return false;
 		}
-
-		return true;
+		return !excludeRules.isExcluded(getEntryName(file), false);
 	}
 
 }
@@ -0,0 +1,197 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.debug.core.IStreamListener;
+import org.eclipse.debug.core.ILaunch;
+import org.eclipse.debug.core.model.IProcess;
+import org.eclipse.debug.core.model.IStreamMonitor;
+import org.eclipse.debug.core.model.IStreamsProxy;
+
+/**
+ * Detect when a launched Tomcat has completed its startup, by watching its console
+ * for the "Server startup in" line logged by Catalina.
+ *
+ * The time to ready of each start is kept in a short history, and given to listeners.
+ * Only a warning goes to the error log, when a start is much slower than the previous ones, which usually
+ * means something added to the classpath or to the webapps slows down startup.
+ */
+public class TomcatStartupMonitor {
+
+	static final String STARTUP_MARKER = "Server startup in";
+
+	private static final int HISTORY_SIZE = 10;
+	/** a start is reported as a regression if it is this much slower than the average */
+	private static final double REGRESSION_FACTOR = 1.5;
+	/** and at least this number of milliseconds slower */
+	private static final long REGRESSION_MIN_DELTA = 1000;
+
+	private final List<TomcatStartupListener> listeners = new CopyOnWriteArrayList<TomcatStartupListener>();
+	private final LinkedList<Long> history = new LinkedList<Long>();
+
+	public void addListener(TomcatStartupListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(TomcatStartupListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * @return time to ready of the last starts, oldest first
+	 */
+	public synchronized long[] getHistory() {
+		long[] result = new long[history.size()];
+		int i = 0;
+		for (Long time : history) {
+			result[i++] = time.longValue();
+		}
+		return result;
+	}
+
+	/**
+	 * Watch the console of launch until Tomcat startup completes
+	 * @param startTime time of the start request, as returned by System.currentTimeMillis()
+	 */
+	public void watch(ILaunch launch, long startTime) {
+		if (launch == null) {
+			return;
+		}
+		IProcess[] processes = launch.getProcesses();
+		if (processes.length == 0 || processes[0].getStreamsProxy() == null) {
+			return;
+		}
+		IStreamsProxy streams = processes[0].getStreamsProxy();
+		Probe probe = new Probe(launch, startTime);
+		// JULI console handler writes to stderr, but a custom logging setup may use stdout
+		probe.attach(streams.getErrorStreamMonitor());
+		probe.attach(streams.getOutputStreamMonitor());
+	}
+
+	private void ready(ILaunch launch, long timeToReady) {
+		long average = record(timeToReady);
+		if (average > 0 && timeToReady > average * REGRESSION_FACTOR && timeToReady - average >= REGRESSION_MIN_DELTA) {
+			TomcatLauncherPlugin.log(IStatus.WARNING, "Tomcat startup took " + timeToReady + " ms, average of previous starts is " + average + " ms");
+		}
+
+		for (TomcatStartupListener listener : listeners) {
+			try {
+				listener.tomcatReady(launch, timeToReady);
+			} catch (RuntimeException e) {
+				TomcatLauncherPlugin.log(e);
+			}
+		}
+	}
+
+	/**
+	 * Add timeToReady to the history
+	 * @return average of the previous starts, 0 if this is the first one
+	 */
+	private synchronized long record(long timeToReady) {
+		long total = 0;
+		for (Long time : history) {
+			total += time.longValue();
+		}
+		long average = history.isEmpty() ? 0 : total / history.size();
+
+		history.addLast(Long.valueOf(timeToReady));
+		if (history.size() > HISTORY_SIZE) {
+			history.removeFirst();
+		}
+		return average;
+	}
+
+	/**
+	 * Watch the streams of one launch, the first stream showing the marker wins
+	 */
+	private class Probe {
+		private final ILaunch launch;
+		private final long startTime;
+		private final List<IStreamMonitor> monitors = new ArrayList<IStreamMonitor>();
+		private final List<IStreamListener> streamListeners = new ArrayList<IStreamListener>();
+		private boolean done;
+
+		Probe(ILaunch launch, long startTime) {
+			this.launch = launch;
+			this.startTime = startTime;
+		}
+
+		void attach(IStreamMonitor monitor) {
+			if (monitor == null) {
+				return;
+			}
+			StreamProbe listener = new StreamProbe(this);
+			synchronized (this) {
+				monitors.add(monitor);
+				streamListeners.add(listener);
+			}
+			monitor.addListener(listener);
+			// output written before the listener was added
+			listener.streamAppended(monitor.getContents(), monitor);
+		}
+
+		void found() {
+			long timeToReady = System.currentTimeMillis() - startTime;
+			synchronized (this) {
+				if (done) {
+					return;
+				}
+				done = true;
+				for (int i = 0; i < monitors.size(); i++) {
+					monitors.get(i).removeListener(streamListeners.get(i));
+				}
+			}
+			ready(launch, timeToReady);
+		}
+	}
+
+	/**
+	 * Search the marker in the text appended to one stream, the marker may be split
+	 * between two chunks so the end of the previous chunk is kept
+	 */
+	private static class StreamProbe implements IStreamListener {
+		private final Probe probe;
+		private String tail = "";
+
+		StreamProbe(Probe probe) {
+			this.probe = probe;
+		}
+
+		public void streamAppended(String text, IStreamMonitor monitor) {
+			if (text == null || text.length() == 0) {
+				return;
+			}
+			String window;
+			synchronized (this) {
+				window = tail + text;
+				int keep = Math.min(window.length(), STARTUP_MARKER.length() - 1);
+				tail = window.substring(window.length() - keep);
+			}
+			if (window.indexOf(STARTUP_MARKER) != -1) {
+				probe.found();
+			}
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.IOException;
+
+import org.eclipse.core.resources.WorkspaceJob;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.ui.progress.IProgressConstants;
+
+/**
+ * Update the context definition of all Tomcat projects in background,
+ * see {@link TomcatProject#updateAllContexts()}
+ */
+public class UpdateAllContextsJob extends WorkspaceJob {
+
+	public UpdateAllContextsJob() {
+		super(TomcatLauncherPlugin.getResourceString("job.updateAllContexts.name"));
+		setUser(true);
+		setProperty(IProgressConstants.KEEP_PROPERTY, Boolean.TRUE);
+	}
+
+	@Override
+	public IStatus runInWorkspace(IProgressMonitor monitor) throws CoreException {
+		try {
+			TomcatProject.updateAllContexts();
+			return new Status(IStatus.OK, TomcatLauncherPlugin.PLUGIN_ID, IStatus.OK,
+					TomcatLauncherPlugin.getResourceString("msg.action.succeeded"), null);
+		} catch (IOException e) {
+			return new Status(IStatus.ERROR, TomcatLauncherPlugin.PLUGIN_ID, IStatus.ERROR,
+					TomcatLauncherPlugin.getResourceString("msg.action.failed") + "\n" + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public boolean belongsTo(Object family) {
+		return family == UpdateAllContextsJob.class;
+	}
+}
@@ -0,0 +1,79 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Write .#webclasspath of Tomcat projects again after their classpath changed,
+ * so a running DevLoader adds the new entries without restarting Tomcat.
+ */
+public class UpdateWebClassPathJob extends Job {
+
+	/** ms to wait before running, a classpath change often comes with several deltas */
+	static final long DELAY = 500;
+
+	private final Set<String> projectNames;
+
+	public UpdateWebClassPathJob(Set<String> projectNames) {
+		super(TomcatLauncherPlugin.getResourceString("job.updateWebClassPath.name"));
+		this.projectNames = projectNames;
+		setSystem(true);
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		TomcatBootstrap bootstrap = TomcatLauncherPlugin.getDefault().getTomcatBootstrap();
+		if (bootstrap == null) {
+			return Status.OK_STATUS;
+		}
+		for (String name : projectNames) {
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(name);
+			try {
+				if (!project.isOpen() || !project.hasNature(JavaCore.NATURE_ID)) {
+					continue;
+				}
+				TomcatProject tomcatProject = (TomcatProject) project.getNature(TomcatLauncherPlugin.NATURE_ID);
+				if (tomcatProject != null) {
+					bootstrap.updateWebClassPath(tomcatProject);
+				}
+			} catch (CoreException e) {
+				TomcatLauncherPlugin.log("Updating webclasspath of " + name + " failed: " + e);
+			}
+		}
+		return Status.OK_STATUS;
+	}
+
+	@Override
+	public boolean belongsTo(Object family) {
+		return family == UpdateWebClassPathJob.class;
+	}
+}
@@ -179,8 +179,9 @@ public class VMLauncherUtility {
 		config.setAttribute(ILaunchConfiguration.ATTR_SOURCE_LOCATOR_MEMENTO, locator.getMemento());
 		
 		ArrayList classpathMementos = new ArrayList();
-		for (int i = 0; i < classpath.length; i++) {
-			IRuntimeClasspathEntry cpEntry = JavaRuntime.newArchiveRuntimeClasspathEntry(new Path(classpath[i]));
+		// a jar listed twice would only be shadowed by its first occurrence
+		for (String entry : new ClassPathBuilder(classpath)) {
+			IRuntimeClasspathEntry cpEntry = JavaRuntime.newArchiveRuntimeClasspathEntry(new Path(entry));
 			cpEntry.setClasspathProperty(IRuntimeClasspathEntry.USER_CLASSES);
 			classpathMementos.add(cpEntry.getMemento());
 		}
@@ -0,0 +1,180 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * Remember the webapp classpath resolved by {@link TomcatBootstrap} for each Tomcat project,
+ * so a start does not have to walk raw classpaths and containers again when nothing changed.
+ *
+ * A cached classpath is used only if the project settings and raw classpath still
+ * match the fingerprint computed when it was resolved. It is dropped as soon as JDT reports
+ * a classpath change on the project or on any project it was resolved from,
+ * its .#webclasspath is then written again by {@link UpdateWebClassPathJob}
+ * so a running DevLoader picks up new entries. A classpath resolved while such a
+ * change was reported is not cached, it may have been read before the change.
+ */
+public class WebClassPathCache implements IElementChangedListener {
+
+	private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_OPENED
+			| IJavaElementDelta.F_CLOSED;
+
+	private final ConcurrentMap<String, CachedClassPath> cache = new ConcurrentHashMap<String, CachedClassPath>();
+	/** incremented by each classpath change */
+	private final AtomicLong generation = new AtomicLong();
+	/** generation of the last classpath change of each project */
+	private final Map<String, Long> changedAt = new ConcurrentHashMap<String, Long>();
+
+	/**
+	 * Return the classpath cached for project if it was resolved with the same fingerprint,
+	 * null otherwise
+	 */
+	public List<String> get(String projectName, String fingerprint) {
+		CachedClassPath cached = cache.get(projectName);
+		if (cached == null || !cached.fingerprint.equals(fingerprint)) {
+			return null;
+		}
+		return cached.classpath;
+	}
+
+	/**
+	 * @return current generation, to be given to {@link #put(String, String, List, Collection, long)}
+	 * for a classpath resolved from now on
+	 */
+	public long getGeneration() {
+		return generation.get();
+	}
+
+	/**
+	 * Cache a resolved classpath, unless one of the projects it was resolved from
+	 * changed since generation
+	 * @param projectName Tomcat project the classpath was resolved for
+	 * @param fingerprint see {@link #fingerprint(IJavaProject, List, boolean)}
+	 * @param classpath resolved webapp classpath
+	 * @param dependencies names of the projects visited during resolution
+	 * @param resolvedGeneration {@link #getGeneration()} before the resolution started
+	 */
+	public void put(String projectName, String fingerprint, List<String> classpath, Collection<String> dependencies,
+			long resolvedGeneration) {
+		Set<String> projects = new HashSet<String>(dependencies);
+		projects.add(projectName);
+		CachedClassPath cached = new CachedClassPath(fingerprint, classpath, projects);
+		cache.put(projectName, cached);
+		// checked once cached: a change reported meanwhile either is seen here or drops the entry
+		for (String project : projects) {
+			Long changed = changedAt.get(project);
+			if (changed != null && changed.longValue() > resolvedGeneration) {
+				cache.remove(projectName, cached);
+				return;
+			}
+		}
+	}
+
+	public void clear() {
+		cache.clear();
+	}
+
+	/**
+	 * Build a key from everything the resolution of this project depends on,
+	 * apart from referenced projects which are handled by classpath deltas
+	 */
+	public String fingerprint(IJavaProject project, List<String> selectedPaths, boolean mavenClasspath) throws JavaModelException {
+		StringBuffer key = new StringBuffer();
+		key.append(mavenClasspath).append('\n');
+		for (String selected : selectedPaths) {
+			key.append(selected).append('\n');
+		}
+		key.append(project.getOutputLocation()).append('\n');
+		IClasspathEntry[] entries = project.getRawClasspath();
+		for (IClasspathEntry entry : entries) {
+			key.append(entry).append('\n');
+		}
+		return key.toString();
+	}
+
+	public void elementChanged(ElementChangedEvent event) {
+		Set<String> invalidated = new HashSet<String>();
+		visit(event.getDelta(), invalidated);
+		if (!invalidated.isEmpty()) {
+			new UpdateWebClassPathJob(invalidated).schedule(UpdateWebClassPathJob.DELAY);
+		}
+	}
+
+	private void visit(IJavaElementDelta delta, Set<String> invalidated) {
+		IJavaElement element = delta.getElement();
+		if (element.getElementType() == IJavaElement.JAVA_MODEL) {
+			IJavaElementDelta[] children = delta.getAffectedChildren();
+			for (IJavaElementDelta child : children) {
+				visit(child, invalidated);
+			}
+		} else if (element.getElementType() == IJavaElement.JAVA_PROJECT) {
+			if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & CLASSPATH_FLAGS) != 0) {
+				invalidate(element.getElementName(), invalidated);
+			}
+		}
+	}
+
+	/**
+	 * Drop every cached classpath which was resolved using this project
+	 * @param invalidated receives the names of the Tomcat projects dropped
+	 */
+	private void invalidate(String projectName, Set<String> invalidated) {
+		changedAt.put(projectName, Long.valueOf(generation.incrementAndGet()));
+		for (Iterator<Map.Entry<String, CachedClassPath>> it = cache.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, CachedClassPath> entry = it.next();
+			if (entry.getValue().projects.contains(projectName)) {
+				invalidated.add(entry.getKey());
+				it.remove();
+			}
+		}
+	}
+
+	private static class CachedClassPath {
+		final String fingerprint;
+		final List<String> classpath;
+		final Set<String> projects;
+
+		CachedClassPath(String fingerprint, List<String> classpath, Set<String> projects) {
+			this.fingerprint = fingerprint;
+			this.classpath = Collections.unmodifiableList(new ArrayList<String>(classpath));
+			this.projects = projects;
+		}
+	}
+}
@@ -20,8 +20,9 @@
 package net.sf.eclipse.tomcat;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * container for managing a number of WebClassPathEntry objects
@@ -32,13 +33,16 @@ import java.util.List;
 public class WebClassPathEntries {
 	public static final String TAG_NAME = "webClassPathEntries";
 	private static final String ENTRY_TAG_NAME = "webClassPathEntry";		
-	private List entries;
+	private List<String> entries;
+	/** lookup set for entries, dropped when the list is handed out since callers may modify it */
+	private Set<String> index;
 	
 	public WebClassPathEntries() {
-		entries = new ArrayList();
+		entries = new ArrayList<String>();
 	}
-	public WebClassPathEntries(List values) {
-		entries = values;
+	public WebClassPathEntries(List<String> values) {
+		// copied, the lookup set would not see changes made by the caller
+		entries = new ArrayList<String>(values);
 	}	
 	
 	/** returns the number of webclasspath-entries */
@@ -47,19 +51,25 @@ public class WebClassPathEntries {
 	}
 	
 	/** return the WebClassPathEntry value at the index provided */
-	public String getWebClassPathEntry(int index) {
-		if (index >= entries.size()) return null;
-		String entry = (String) entries.get(index);
+	public String getWebClassPathEntry(int position) {
+		if (position >= entries.size()) return null;
+		String entry = entries.get(position);
 		return entry;
 	}
 	
 	/** add a WebClassPathEntry value */
 	public void addWebClassPathEntry(String value) {
-		if (entries.contains(value)) return;
+		if (index == null) {
+			index = new HashSet<String>(entries);
+		}
+		if (!index.add(value)) return;
 		entries.add(value);
 	}
 	
-	public List getList() { return entries; }
+	public List<String> getList() {
+		index = null;
+		return entries;
+	}
 
 	/**
 	 * transfer the state of this object to an XML string
@@ -75,8 +85,7 @@ public class WebClassPathEntries {
 		}
 		String xml = spaces + startTag() + "\n";
 		
-		for (Iterator it = entries.iterator(); it.hasNext();) {
-			String entry = (String) it.next();
+		for (String entry : entries) {
 			xml += spaces + spaces + startEntryTag() + entry + endEntryTag() + "\n";			
 		}		
 		
@@ -0,0 +1,153 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Content of .#webclasspath, the classpath DevLoader adds to a web application.
+ *
+ * Version 2 starts with the header "# webclasspath 2 &lt;hash&gt;", hash being the
+ * SHA-256 of the entries, followed by one entry per line. Directory entries end
+ * with '/', so DevLoader knows the kind of each entry without looking at the
+ * file system. The file is encoded in UTF-8.
+ *
+ * Version 1 is a list of entries without header, read with the default encoding.
+ * Only the DevLoader built for Tomcat 8 and later reads version 2, version 1 is
+ * still written for the DevLoader of older Tomcat versions.
+ */
+public class WebClassPathFile {
+
+	static final String HEADER = "# webclasspath 2 ";
+	static final String ENCODING = "UTF-8";
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	private final String header;
+	private final String content;
+
+	/**
+	 * Version 2 content
+	 * @param classpath entries in classpath order, a missing entry is a directory
+	 * unless it is named like an archive (an output folder not built yet)
+	 */
+	public WebClassPathFile(List<String> classpath) {
+		this(classpath, true);
+	}
+
+	/**
+	 * @param classpath entries in classpath order
+	 * @param version2 false to write version 1, for a DevLoader which does not read version 2
+	 */
+	public WebClassPathFile(List<String> classpath, boolean version2) {
+		StringBuffer entries = new StringBuffer();
+		for (String entry : classpath) {
+			entries.append(entry);
+			if (version2 && isDirectory(entry) && !entry.endsWith("/") && !entry.endsWith(File.separator)) {
+				entries.append('/');
+			}
+			entries.append(LINE_SEPARATOR);
+		}
+		if (version2) {
+			header = HEADER + sha256(entries.toString().replace(LINE_SEPARATOR, "\n"));
+			content = header + LINE_SEPARATOR + entries;
+		} else {
+			header = null;
+			content = entries.toString();
+		}
+	}
+
+	/**
+	 * @return first line of a version 2 content, null for version 1
+	 */
+	public String getHeader() {
+		return header;
+	}
+
+	public String getContent() {
+		return content;
+	}
+
+	/**
+	 * Write the content to file, unless file already starts with the same header,
+	 * or already has this content for version 1
+	 * @return true if file was written
+	 */
+	public boolean write(File file) throws IOException {
+		if (header == null) {
+			// DevLoader reads version 1 with the default encoding
+			return FileUtil.toFile(file, content.getBytes());
+		}
+		if (header.equals(readHeader(file))) {
+			return false;
+		}
+		FileUtil.toFile(file, content.getBytes(ENCODING));
+		return true;
+	}
+
+	/**
+	 * @return first line of file, null if it does not exist
+	 */
+	static String readHeader(File file) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+		try {
+			return reader.readLine();
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static boolean isDirectory(String entry) {
+		File file = new File(entry);
+		if (file.exists()) {
+			return file.isDirectory();
+		}
+		String name = file.getName().toLowerCase();
+		return !name.endsWith(".jar") && !name.endsWith(".zip");
+	}
+
+	private static String sha256(String s) {
+		byte[] hash;
+		try {
+			hash = MessageDigest.getInstance("SHA-256").digest(s.getBytes(ENCODING));
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e.toString());
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.toString());
+		}
+
+		StringBuffer result = new StringBuffer();
+		for (int i = 0; i < hash.length; i++) {
+			result.append(Character.forDigit((hash[i] >> 4) & 0xf, 16));
+			result.append(Character.forDigit(hash[i] & 0xf, 16));
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,119 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.util.Calendar;
+import java.util.zip.ZipEntry;
+
+/**
+ * Entry of a zip archive, as read by {@link ZipArchiveReader} or written by {@link ZipArchiveWriter}
+ */
+public class ZipArchiveEntry {
+
+	/** general purpose flag : entry is encrypted */
+	static final int FLAG_ENCRYPTED = 0x0001;
+	/** general purpose flag : name is encoded in UTF-8 */
+	static final int FLAG_UTF8 = 0x0800;
+
+	private final String name;
+	int method = ZipEntry.DEFLATED;
+	int flags;
+	int dosTime;
+	long crc;
+	long compressedSize;
+	long size;
+	long localHeaderOffset;
+	/** offset of the compressed data in the archive read, -1 if unknown yet */
+	long dataOffset = -1;
+
+	public ZipArchiveEntry(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public boolean isDirectory() {
+		return name.endsWith("/");
+	}
+
+	/**
+	 * @return ZipEntry.STORED or ZipEntry.DEFLATED
+	 */
+	public int getMethod() {
+		return method;
+	}
+
+	public long getCrc() {
+		return crc;
+	}
+
+	public long getCompressedSize() {
+		return compressedSize;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return modification time, with the 2 seconds precision of zip archives
+	 */
+	public long getTime() {
+		return fromDosTime(dosTime);
+	}
+
+	public void setTime(long time) {
+		dosTime = toDosTime(time);
+	}
+
+	static int toDosTime(long time) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTimeInMillis(time);
+		int year = calendar.get(Calendar.YEAR);
+		if (year < 1980) {
+			// (1 << 21) | (1 << 16) : 1980-01-01 00:00
+			return 0x00210000;
+		}
+		return (year - 1980) << 25
+				| (calendar.get(Calendar.MONTH) + 1) << 21
+				| calendar.get(Calendar.DAY_OF_MONTH) << 16
+				| calendar.get(Calendar.HOUR_OF_DAY) << 11
+				| calendar.get(Calendar.MINUTE) << 5
+				| calendar.get(Calendar.SECOND) >> 1;
+	}
+
+	static long fromDosTime(int dosTime) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(((dosTime >> 25) & 0x7f) + 1980,
+				((dosTime >> 21) & 0x0f) - 1,
+				(dosTime >> 16) & 0x1f,
+				(dosTime >> 11) & 0x1f,
+				(dosTime >> 5) & 0x3f,
+				(dosTime << 1) & 0x3e);
+		return calendar.getTimeInMillis();
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
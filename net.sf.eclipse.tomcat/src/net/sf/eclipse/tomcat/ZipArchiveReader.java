@@ -0,0 +1,161 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read the central directory of a zip archive, so compressed data of its entries
+ * can be copied as is by {@link ZipArchiveWriter#copy(ZipArchiveReader, ZipArchiveEntry)}.
+ *
+ * Only archives without zip64 extensions are supported, that is what
+ * {@link ZipArchiveWriter} produces.
+ */
+public class ZipArchiveReader {
+
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+	private static final int LOCAL_FILE_HEADER = 0x04034b50;
+	private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xffff;
+
+	private final RandomAccessFile file;
+	private final Map<String, ZipArchiveEntry> entries = new LinkedHashMap<String, ZipArchiveEntry>();
+
+	public ZipArchiveReader(File zipFile) throws IOException {
+		file = new RandomAccessFile(zipFile, "r");
+		try {
+			readCentralDirectory();
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		} catch (RuntimeException e) {
+			file.close();
+			throw new IOException(zipFile + " is not a valid zip archive : " + e);
+		}
+	}
+
+	/**
+	 * @return the entry with this name, null if there is none
+	 */
+	public ZipArchiveEntry getEntry(String name) {
+		return entries.get(name);
+	}
+
+	/**
+	 * @return entries in the order of the central directory
+	 */
+	public Collection<ZipArchiveEntry> getEntries() {
+		return entries.values();
+	}
+
+	public void close() throws IOException {
+		file.close();
+	}
+
+	FileChannel getChannel() {
+		return file.getChannel();
+	}
+
+	/**
+	 * @return offset of the compressed data of entry
+	 */
+	long getDataOffset(ZipArchiveEntry entry) throws IOException {
+		if (entry.dataOffset == -1) {
+			byte[] header = new byte[30];
+			file.seek(entry.localHeaderOffset);
+			file.readFully(header);
+			if (readInt(header, 0) != LOCAL_FILE_HEADER) {
+				throw new IOException("Bad local header for " + entry.getName());
+			}
+			entry.dataOffset = entry.localHeaderOffset + 30 + readShort(header, 26) + readShort(header, 28);
+		}
+		return entry.dataOffset;
+	}
+
+	private void readCentralDirectory() throws IOException {
+		long length = file.length();
+		int tailSize = (int) Math.min(length, END_OF_CENTRAL_DIRECTORY_SIZE + MAX_COMMENT_SIZE);
+		byte[] tail = new byte[tailSize];
+		file.seek(length - tailSize);
+		file.readFully(tail);
+
+		int end = tailSize - END_OF_CENTRAL_DIRECTORY_SIZE;
+		while (end >= 0 && readInt(tail, end) != END_OF_CENTRAL_DIRECTORY) {
+			end--;
+		}
+		if (end < 0) {
+			throw new IOException("End of central directory not found");
+		}
+
+		int count = readShort(tail, end + 10);
+		long directorySize = readUnsignedInt(tail, end + 12);
+		long directoryOffset = readUnsignedInt(tail, end + 16);
+		if (count == 0xffff || directoryOffset == 0xffffffffL) {
+			throw new IOException("zip64 archives are not supported");
+		}
+
+		byte[] directory = new byte[(int) directorySize];
+		file.seek(directoryOffset);
+		file.readFully(directory);
+
+		int offset = 0;
+		for (int i = 0; i < count; i++) {
+			if (readInt(directory, offset) != CENTRAL_DIRECTORY_HEADER) {
+				throw new IOException("Bad central directory header");
+			}
+			int flags = readShort(directory, offset + 8);
+			int nameLength = readShort(directory, offset + 28);
+			int extraLength = readShort(directory, offset + 30);
+			int commentLength = readShort(directory, offset + 32);
+			String charset = (flags & ZipArchiveEntry.FLAG_UTF8) != 0 ? "UTF-8" : "Cp437";
+			String name = new String(directory, offset + 46, nameLength, charset);
+
+			ZipArchiveEntry entry = new ZipArchiveEntry(name);
+			entry.flags = flags;
+			entry.method = readShort(directory, offset + 10);
+			entry.dosTime = readInt(directory, offset + 12);
+			entry.crc = readUnsignedInt(directory, offset + 16);
+			entry.compressedSize = readUnsignedInt(directory, offset + 20);
+			entry.size = readUnsignedInt(directory, offset + 24);
+			entry.localHeaderOffset = readUnsignedInt(directory, offset + 42);
+			entries.put(name, entry);
+
+			offset += 46 + nameLength + extraLength + commentLength;
+		}
+	}
+
+	private static int readShort(byte[] b, int offset) {
+		return (b[offset] & 0xff) | (b[offset + 1] & 0xff) << 8;
+	}
+
+	private static int readInt(byte[] b, int offset) {
+		return readShort(b, offset) | readShort(b, offset + 2) << 16;
+	}
+
+	private static long readUnsignedInt(byte[] b, int offset) {
+		return readInt(b, offset) & 0xffffffffL;
+	}
+}
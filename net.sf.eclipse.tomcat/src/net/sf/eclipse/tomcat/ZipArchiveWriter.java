@@ -0,0 +1,310 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+
+/**
+ * Write a zip archive.
+ *
+ * Unlike ZipOutputStream, the compressed data of an entry can be copied as is from
+ * another archive, and STORED entries do not need their CRC before being written :
+ * the local header is written first, then patched once data has been written.
+ *
+ * zip64 extensions are not supported, archives are limited to 65535 entries and 4 GB.
+ */
+public class ZipArchiveWriter {
+
+	private static final int LOCAL_FILE_HEADER = 0x04034b50;
+	private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int VERSION = 20;
+	private static final long MAX_SIZE = 0xffffffffL;
+	private static final int MAX_ENTRIES = 0xffff;
+	private static final int BUFFER = 64 * 1024;
+
+	private final FileOutputStream out;
+	private final FileChannel channel;
+	private final byte[] buffer = new byte[BUFFER];
+	private int count;
+	/** number of bytes written to the archive so far */
+	private long written;
+
+	private final List<ZipArchiveEntry> entries = new ArrayList<ZipArchiveEntry>();
+	private final Set<String> names = new HashSet<String>();
+	private final ZipEntryCompressor compressor = new ZipEntryCompressor();
+
+	/** data written to this stream is added to the archive */
+	private final OutputStream entryOutput = new OutputStream() {
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int offset, int length) throws IOException {
+			ZipArchiveWriter.this.write(b, offset, length);
+		}
+	};
+
+	public ZipArchiveWriter(File zipFile) throws IOException {
+		out = new FileOutputStream(zipFile);
+		channel = out.getChannel();
+	}
+
+	/**
+	 * Add a directory entry, name must end with '/'
+	 */
+	public ZipArchiveEntry putDirectory(String name, long time) throws IOException {
+		ZipArchiveEntry entry = newEntry(name, ZipEntry.STORED, time);
+		writeLocalHeader(entry);
+		return entry;
+	}
+
+	/**
+	 * Add an entry with the content of file, read only once : the method is chosen
+	 * by policy once the first bytes are read, the CRC is computed while writing
+	 */
+	public ZipArchiveEntry putFile(String name, File file, long time, CompressionPolicy policy) throws IOException {
+		int method = compressor.open(name, file, policy);
+		ZipArchiveEntry entry;
+		try {
+			entry = newEntry(name, method, time);
+			writeLocalHeader(entry);
+		} catch (IOException e) {
+			compressor.close();
+			throw e;
+		}
+
+		long start = written;
+		compressor.compressTo(entryOutput);
+		entry.crc = compressor.getCrc();
+		entry.size = compressor.getSize();
+		entry.compressedSize = written - start;
+		checkSize(entry);
+		patchLocalHeader(entry);
+		return entry;
+	}
+
+	/**
+	 * Add an entry with data compressed by another thread
+	 */
+	ZipArchiveEntry putCompressed(String name, long time, ZipCompressedData data) throws IOException {
+		ZipArchiveEntry entry = newEntry(name, data.method, time);
+		entry.crc = data.crc;
+		entry.size = data.size;
+		entry.compressedSize = data.compressedSize;
+		checkSize(entry);
+		writeLocalHeader(entry);
+
+		if (data.memory != null) {
+			data.memory.writeTo(entryOutput);
+		} else {
+			FileInputStream in = new FileInputStream(data.spill);
+			try {
+				transfer(in.getChannel(), 0, data.compressedSize);
+			} finally {
+				in.close();
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Add an entry of another archive, its compressed data is copied without
+	 * being decompressed
+	 */
+	public ZipArchiveEntry copy(ZipArchiveReader reader, ZipArchiveEntry source) throws IOException {
+		if ((source.flags & ZipArchiveEntry.FLAG_ENCRYPTED) != 0) {
+			throw new IOException(source.getName() + " is encrypted");
+		}
+		ZipArchiveEntry entry = newEntry(source.getName(), source.method, 0);
+		entry.dosTime = source.dosTime;
+		entry.crc = source.crc;
+		entry.size = source.size;
+		entry.compressedSize = source.compressedSize;
+		writeLocalHeader(entry);
+
+		transfer(reader.getChannel(), reader.getDataOffset(source), source.compressedSize);
+		return entry;
+	}
+
+	/**
+	 * Write the central directory, the archive is complete once this returns
+	 */
+	public void finish() throws IOException {
+		if (entries.size() > MAX_ENTRIES) {
+			throw new IOException("Too many entries, zip64 is not supported");
+		}
+		long directoryOffset = written;
+		for (ZipArchiveEntry entry : entries) {
+			byte[] name = entry.getName().getBytes("UTF-8");
+			byte[] header = new byte[46 + name.length];
+			writeInt(header, 0, CENTRAL_DIRECTORY_HEADER);
+			writeShort(header, 4, VERSION);
+			writeShort(header, 6, VERSION);
+			writeShort(header, 8, entry.flags);
+			writeShort(header, 10, entry.method);
+			writeInt(header, 12, entry.dosTime);
+			writeInt(header, 16, (int) entry.crc);
+			writeInt(header, 20, (int) entry.compressedSize);
+			writeInt(header, 24, (int) entry.size);
+			writeShort(header, 28, name.length);
+			// extra field, comment, disk number, internal attributes are 0
+			writeInt(header, 38, entry.isDirectory() ? 0x10 : 0);
+			writeInt(header, 42, (int) entry.localHeaderOffset);
+			System.arraycopy(name, 0, header, 46, name.length);
+			write(header, 0, header.length);
+		}
+		long directorySize = written - directoryOffset;
+		if (written > MAX_SIZE) {
+			throw new IOException("Archive is too large, zip64 is not supported");
+		}
+
+		byte[] end = new byte[22];
+		writeInt(end, 0, END_OF_CENTRAL_DIRECTORY);
+		writeShort(end, 8, entries.size());
+		writeShort(end, 10, entries.size());
+		writeInt(end, 12, (int) directorySize);
+		writeInt(end, 16, (int) directoryOffset);
+		write(end, 0, end.length);
+		flush();
+	}
+
+	/**
+	 * Close the file, call {@link #finish()} before unless the archive is discarded
+	 */
+	public void close() throws IOException {
+		compressor.end();
+		out.close();
+	}
+
+	private ZipArchiveEntry newEntry(String name, int method, long time) throws IOException {
+		if (!names.add(name)) {
+			throw new IOException("Duplicate entry " + name);
+		}
+		ZipArchiveEntry entry = new ZipArchiveEntry(name);
+		entry.method = method;
+		entry.flags = ZipArchiveEntry.FLAG_UTF8;
+		entry.setTime(time);
+		entry.localHeaderOffset = written;
+		entries.add(entry);
+		if (written > MAX_SIZE) {
+			throw new IOException("Archive is too large, zip64 is not supported");
+		}
+		return entry;
+	}
+
+	private void writeLocalHeader(ZipArchiveEntry entry) throws IOException {
+		byte[] name = entry.getName().getBytes("UTF-8");
+		byte[] header = new byte[30 + name.length];
+		writeInt(header, 0, LOCAL_FILE_HEADER);
+		writeShort(header, 4, VERSION);
+		writeShort(header, 6, entry.flags);
+		writeShort(header, 8, entry.method);
+		writeInt(header, 10, entry.dosTime);
+		writeInt(header, 14, (int) entry.crc);
+		writeInt(header, 18, (int) entry.compressedSize);
+		writeInt(header, 22, (int) entry.size);
+		writeShort(header, 26, name.length);
+		System.arraycopy(name, 0, header, 30, name.length);
+		write(header, 0, header.length);
+	}
+
+	/**
+	 * Write CRC and sizes in the local header, once entry data is written
+	 */
+	private void patchLocalHeader(ZipArchiveEntry entry) throws IOException {
+		byte[] patch = new byte[12];
+		writeInt(patch, 0, (int) entry.crc);
+		writeInt(patch, 4, (int) entry.compressedSize);
+		writeInt(patch, 8, (int) entry.size);
+
+		flush();
+		ByteBuffer buf = ByteBuffer.wrap(patch);
+		long position = entry.localHeaderOffset + 14;
+		while (buf.hasRemaining()) {
+			position += channel.write(buf, position);
+		}
+	}
+
+	/**
+	 * Copy count bytes of source, from position, at the end of the archive
+	 */
+	private void transfer(FileChannel source, long position, long count) throws IOException {
+		flush();
+		long remaining = count;
+		while (remaining > 0) {
+			long n = source.transferTo(position, remaining, channel);
+			if (n <= 0) {
+				throw new IOException("Unable to copy compressed data");
+			}
+			position += n;
+			remaining -= n;
+		}
+		written += count;
+	}
+
+	private void checkSize(ZipArchiveEntry entry) throws IOException {
+		if (entry.size > MAX_SIZE || entry.compressedSize > MAX_SIZE) {
+			throw new IOException(entry.getName() + " is too large, zip64 is not supported");
+		}
+	}
+
+	private void write(byte[] b, int offset, int length) throws IOException {
+		if (length > buffer.length - count) {
+			flush();
+		}
+		if (length >= buffer.length) {
+			out.write(b, offset, length);
+		} else {
+			System.arraycopy(b, offset, buffer, count, length);
+			count += length;
+		}
+		written += length;
+	}
+
+	private void flush() throws IOException {
+		if (count > 0) {
+			out.write(buffer, 0, count);
+			count = 0;
+		}
+	}
+
+	private static void writeShort(byte[] b, int offset, int value) {
+		b[offset] = (byte) value;
+		b[offset + 1] = (byte) (value >> 8);
+	}
+
+	private static void writeInt(byte[] b, int offset, int value) {
+		writeShort(b, offset, value);
+		writeShort(b, offset + 2, value >> 16);
+	}
+}
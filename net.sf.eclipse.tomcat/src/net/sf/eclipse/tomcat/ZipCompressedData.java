@@ -0,0 +1,101 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * Content of a file compressed ahead of time, by another thread than the one
+ * writing the archive, see {@link ZipArchiveWriter#putCompressed(String, long, ZipCompressedData)}.
+ *
+ * Small files are kept in memory, large ones in a temporary file.
+ */
+class ZipCompressedData {
+
+	/** files larger than this are compressed to a temporary file */
+	static final long MEMORY_THRESHOLD = 1024 * 1024;
+
+	int method;
+	long crc;
+	long size;
+	long compressedSize;
+	/** time spent compressing, in nanoseconds */
+	long nanos;
+	ByteArrayOutputStream memory;
+	File spill;
+
+	/**
+	 * Compress file, temporary file if any is created in tmpDir
+	 * @return null if policy stores file without compression, there is nothing to gain
+	 * compressing it ahead of time
+	 */
+	static ZipCompressedData compress(String name, File file, CompressionPolicy policy,
+			ZipEntryCompressor compressor, File tmpDir) throws IOException {
+		long start = System.nanoTime();
+		long length = file.length();
+		if (compressor.open(name, file, policy) == ZipEntry.STORED) {
+			compressor.close();
+			return null;
+		}
+
+		ZipCompressedData data = new ZipCompressedData();
+		data.method = ZipEntry.DEFLATED;
+		try {
+			OutputStream out;
+			if (length > MEMORY_THRESHOLD) {
+				data.spill = File.createTempFile(".zip-", ".tmp", tmpDir);
+				out = new BufferedOutputStream(new FileOutputStream(data.spill), 64 * 1024);
+			} else {
+				data.memory = new ByteArrayOutputStream((int) length / 2 + 64);
+				out = data.memory;
+			}
+			try {
+				compressor.compressTo(out);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			compressor.close();
+			data.dispose();
+			throw e;
+		}
+		data.crc = compressor.getCrc();
+		data.size = compressor.getSize();
+		data.compressedSize = data.memory != null ? data.memory.size() : data.spill.length();
+		data.nanos = System.nanoTime() - start;
+		return data;
+	}
+
+	/**
+	 * Release memory and delete temporary file
+	 */
+	void dispose() {
+		memory = null;
+		if (spill != null) {
+			spill.delete();
+			spill = null;
+		}
+	}
+}
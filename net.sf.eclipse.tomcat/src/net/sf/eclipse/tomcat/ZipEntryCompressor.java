@@ -0,0 +1,157 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * Compress the content of a file for a zip entry, reading it only once : the
+ * method is chosen by a {@link CompressionPolicy} once the first block is read,
+ * the CRC is computed while compressing.
+ *
+ * Not thread safe, buffers and deflater are reused from one file to the next.
+ */
+class ZipEntryCompressor {
+
+	private static final int BUFFER = 64 * 1024;
+
+	private final CRC32 crc = new CRC32();
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+	private final byte[] readBuffer = new byte[BUFFER];
+	private final byte[] deflateBuffer = new byte[BUFFER];
+
+	private InputStream in;
+	/** number of bytes read in readBuffer and not yet compressed */
+	private int count;
+	private int method;
+	private long size;
+
+	/**
+	 * Open file and read its first block, {@link #compressTo(OutputStream)} or
+	 * {@link #close()} must be called next
+	 * @return method chosen by policy, ZipEntry.STORED or ZipEntry.DEFLATED
+	 */
+	int open(String name, File file, CompressionPolicy policy) throws IOException {
+		in = new FileInputStream(file);
+		try {
+			count = read(in, readBuffer);
+		} catch (IOException e) {
+			close();
+			throw e;
+		}
+		method = policy.getMethod(name, readBuffer, count);
+		crc.reset();
+		deflater.reset();
+		deflater.setLevel(policy.getLevel());
+		size = 0;
+		return method;
+	}
+
+	/**
+	 * Write the content of the opened file to out, compressed with the chosen method,
+	 * then close the file
+	 */
+	void compressTo(OutputStream out) throws IOException {
+		try {
+			while (count > 0) {
+				crc.update(readBuffer, 0, count);
+				size += count;
+				if (method == ZipEntry.STORED) {
+					out.write(readBuffer, 0, count);
+				} else {
+					deflater.setInput(readBuffer, 0, count);
+					while (!deflater.needsInput()) {
+						deflate(out);
+					}
+				}
+				count = read(in, readBuffer);
+			}
+			if (method == ZipEntry.DEFLATED) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					deflate(out);
+				}
+			}
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * @return CRC of the content written by the last {@link #compressTo(OutputStream)}
+	 */
+	long getCrc() {
+		return crc.getValue();
+	}
+
+	/**
+	 * @return uncompressed size of the content written by the last {@link #compressTo(OutputStream)}
+	 */
+	long getSize() {
+		return size;
+	}
+
+	/**
+	 * Close the opened file, if any
+	 */
+	void close() throws IOException {
+		if (in != null) {
+			InputStream opened = in;
+			in = null;
+			opened.close();
+		}
+	}
+
+	/**
+	 * Release the deflater, the compressor can not be used anymore
+	 */
+	void end() {
+		deflater.end();
+	}
+
+	private void deflate(OutputStream out) throws IOException {
+		int n = deflater.deflate(deflateBuffer, 0, deflateBuffer.length);
+		if (n > 0) {
+			out.write(deflateBuffer, 0, n);
+		}
+	}
+
+	/**
+	 * Fill buffer as much as possible, so the policy sees enough bytes
+	 * @return number of bytes read, 0 at end of file
+	 */
+	private static int read(InputStream in, byte[] buffer) throws IOException {
+		int total = 0;
+		while (total < buffer.length) {
+			int n = in.read(buffer, total, buffer.length - total);
+			if (n == -1) {
+				break;
+			}
+			total += n;
+		}
+		return total;
+	}
+}
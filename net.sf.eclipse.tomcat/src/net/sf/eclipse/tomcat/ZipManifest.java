@@ -0,0 +1,143 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+/**
+ * Manifest of a previous export, written beside the archive : for each file, its
+ * size and modification time when it was read, and the CRC of its content.
+ *
+ * A file whose size and modification time did not change since the previous
+ * export can be copied from the previous archive without being compressed again,
+ * if the archive was written with the same options.
+ */
+public class ZipManifest {
+
+	private static final String HEADER = "# zip manifest 1";
+	private static final String OPTIONS = "# options ";
+
+	private final String options;
+	private final Map<String, Record> records = new HashMap<String, Record>();
+
+	private static class Record {
+		final long crc;
+		final long size;
+		final long time;
+
+		Record(long crc, long size, long time) {
+			this.crc = crc;
+			this.size = size;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * @param options options of the export, see {@link CompressionPolicy#getOptions()}
+	 */
+	public ZipManifest(String options) {
+		this.options = options;
+	}
+
+	/**
+	 * @return manifest stored in file, empty if file does not exist or can not be read
+	 */
+	public static ZipManifest read(File file) {
+		ZipManifest empty = new ZipManifest("");
+		if (!file.isFile()) {
+			return empty;
+		}
+		try {
+			String content = FileUtil.readTextFile(file);
+			StringTokenizer lines = new StringTokenizer(content, "\n");
+			if (!lines.hasMoreTokens() || !lines.nextToken().equals(HEADER) || !lines.hasMoreTokens()) {
+				return empty;
+			}
+			String optionsLine = lines.nextToken();
+			if (!optionsLine.startsWith(OPTIONS)) {
+				return empty;
+			}
+			ZipManifest manifest = new ZipManifest(optionsLine.substring(OPTIONS.length()));
+			while (lines.hasMoreTokens()) {
+				String line = lines.nextToken();
+				// crc size time name, name may contain spaces
+				int first = line.indexOf(' ');
+				int second = line.indexOf(' ', first + 1);
+				int third = line.indexOf(' ', second + 1);
+				if (first < 0 || second < 0 || third < 0) {
+					return empty;
+				}
+				manifest.put(line.substring(third + 1),
+						Long.parseLong(line.substring(0, first), 16),
+						Long.parseLong(line.substring(first + 1, second)),
+						Long.parseLong(line.substring(second + 1, third)));
+			}
+			return manifest;
+		} catch (IOException e) {
+			return empty;
+		} catch (NumberFormatException e) {
+			return empty;
+		}
+	}
+
+	public String getOptions() {
+		return options;
+	}
+
+	public void put(String name, long crc, long size, long time) {
+		records.put(name, new Record(crc, size, time));
+	}
+
+	/**
+	 * @return true if name was recorded with this size and modification time
+	 */
+	public boolean isUnchanged(String name, long size, long time) {
+		Record record = records.get(name);
+		return record != null && record.size == size && record.time == time;
+	}
+
+	/**
+	 * @return recorded CRC of name, -1 if name was not recorded
+	 */
+	public long getCrc(String name) {
+		Record record = records.get(name);
+		return record == null ? -1 : record.crc;
+	}
+
+	public int size() {
+		return records.size();
+	}
+
+	public void write(File file) throws IOException {
+		StringBuffer content = new StringBuffer(HEADER).append('\n');
+		content.append(OPTIONS).append(options).append('\n');
+		for (Map.Entry<String, Record> each : records.entrySet()) {
+			Record record = each.getValue();
+			content.append(Long.toHexString(record.crc)).append(' ')
+					.append(record.size).append(' ')
+					.append(record.time).append(' ')
+					.append(each.getKey()).append('\n');
+		}
+		FileUtil.toTextFile(file, content.toString());
+	}
+}
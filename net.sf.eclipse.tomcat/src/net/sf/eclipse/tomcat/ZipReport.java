@@ -0,0 +1,291 @@
+/* The MIT License
+ * (c) Copyright Eclipse Tomcat Plugin 2014-2016
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software
+ * and associated documentation files (the "Software"), to deal in the Software without restriction,
+ * including without limitation the rights to use, copy, modify, merge, publish, distribute,
+ * sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING
+ * BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package net.sf.eclipse.tomcat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What an archive is made of : size before and after compression and time spent
+ * compressing, for the whole archive, each directory (with its subdirectories)
+ * and each jar, jars of the same artifact in several versions in WEB-INF/lib,
+ * and largest entries.
+ *
+ * Written as JSON by {@link #toJson()}, so it can be compared between builds.
+ */
+public class ZipReport {
+
+	static final String LIB_DIR = "WEB-INF/lib/";
+	/** number of entries listed as the largest ones */
+	static final int LARGEST_ENTRIES = 20;
+
+	private static final Comparator<Entry> SIZE_ORDER = new Comparator<Entry>() {
+		public int compare(Entry entry1, Entry entry2) {
+			if (entry1.size != entry2.size) {
+				return entry1.size > entry2.size ? -1 : 1;
+			}
+			return entry1.name.compareTo(entry2.name);
+		}
+	};
+
+	private final String archiveName;
+	private final List<Entry> entries = new ArrayList<Entry>();
+
+	/**
+	 * An entry of the archive
+	 */
+	private static class Entry {
+		String name;
+		long size;
+		long compressedSize;
+		long nanos;
+		boolean copied;
+	}
+
+	/**
+	 * Sizes and compression time of a set of entries
+	 */
+	private static class Totals {
+		int files;
+		int copied;
+		long size;
+		long compressedSize;
+		long nanos;
+
+		void add(Entry entry) {
+			files++;
+			if (entry.copied) {
+				copied++;
+			}
+			size += entry.size;
+			compressedSize += entry.compressedSize;
+			nanos += entry.nanos;
+		}
+	}
+
+	public ZipReport(String archiveName) {
+		this.archiveName = archiveName;
+	}
+
+	/**
+	 * @param name name of the entry in the archive
+	 * @param nanos time spent compressing it, 0 if it was copied from the previous archive
+	 * @param copied true if compressed data was copied from the previous archive
+	 */
+	public void add(String name, long size, long compressedSize, long nanos, boolean copied) {
+		Entry entry = new Entry();
+		entry.name = name;
+		entry.size = size;
+		entry.compressedSize = compressedSize;
+		entry.nanos = nanos;
+		entry.copied = copied;
+		entries.add(entry);
+	}
+
+	/**
+	 * @return jars of WEB-INF/lib by artifact, for artifacts found in several versions
+	 */
+	public Map<String, List<String>> getDuplicateJars() {
+		Map<String, List<String>> jarsByArtifact = new TreeMap<String, List<String>>();
+		for (Entry entry : entries) {
+			if (entry.name.startsWith(LIB_DIR) && entry.name.indexOf('/', LIB_DIR.length()) == -1 && isJar(entry.name)) {
+				String jar = entry.name.substring(LIB_DIR.length());
+				String artifact = getArtifact(jar);
+				List<String> jars = jarsByArtifact.get(artifact);
+				if (jars == null) {
+					jars = new ArrayList<String>();
+					jarsByArtifact.put(artifact, jars);
+				}
+				jars.add(jar);
+			}
+		}
+		Map<String, List<String>> duplicates = new TreeMap<String, List<String>>();
+		for (Map.Entry<String, List<String>> jars : jarsByArtifact.entrySet()) {
+			if (jars.getValue().size() > 1) {
+				Collections.sort(jars.getValue());
+				duplicates.put(jars.getKey(), jars.getValue());
+			}
+		}
+		return duplicates;
+	}
+
+	/**
+	 * @return the report as a JSON object, directories and jars sorted by name
+	 */
+	public String toJson() {
+		Totals total = new Totals();
+		Map<String, Totals> directories = new TreeMap<String, Totals>();
+		List<Entry> jars = new ArrayList<Entry>();
+		for (Entry entry : entries) {
+			total.add(entry);
+			for (int slash = entry.name.lastIndexOf('/'); slash != -1; slash = entry.name.lastIndexOf('/', slash - 1)) {
+				String directory = entry.name.substring(0, slash + 1);
+				Totals totals = directories.get(directory);
+				if (totals == null) {
+					totals = new Totals();
+					directories.put(directory, totals);
+				}
+				totals.add(entry);
+			}
+			if (isJar(entry.name)) {
+				jars.add(entry);
+			}
+		}
+		Collections.sort(jars, new Comparator<Entry>() {
+			public int compare(Entry entry1, Entry entry2) {
+				return entry1.name.compareTo(entry2.name);
+			}
+		});
+		List<Entry> largest = new ArrayList<Entry>(entries);
+		Collections.sort(largest, SIZE_ORDER);
+		if (largest.size() > LARGEST_ENTRIES) {
+			largest = largest.subList(0, LARGEST_ENTRIES);
+		}
+
+		StringBuilder json = new StringBuilder();
+		json.append("{\n  \"archive\": ").append(quote(archiveName)).append(",\n  ");
+		appendTotals(json, total);
+
+		json.append(",\n  \"directories\": [");
+		String separator = "\n    ";
+		for (Map.Entry<String, Totals> directory : directories.entrySet()) {
+			json.append(separator).append("{\"path\": ").append(quote(directory.getKey())).append(", ");
+			appendTotals(json, directory.getValue());
+			json.append('}');
+			separator = ",\n    ";
+		}
+
+		json.append("\n  ],\n  \"jars\": [");
+		separator = "\n    ";
+		for (Entry jar : jars) {
+			String jarName = jar.name.substring(jar.name.lastIndexOf('/') + 1);
+			json.append(separator);
+			appendEntry(json, jar);
+			json.append(", \"artifact\": ").append(quote(getArtifact(jarName)))
+				.append(", \"version\": ").append(quote(getVersion(jarName))).append('}');
+			separator = ",\n    ";
+		}
+
+		json.append("\n  ],\n  \"duplicateJars\": [");
+		separator = "\n    ";
+		for (Map.Entry<String, List<String>> duplicate : getDuplicateJars().entrySet()) {
+			json.append(separator).append("{\"artifact\": ").append(quote(duplicate.getKey())).append(", \"jars\": [");
+			String jarSeparator = "";
+			for (String jar : duplicate.getValue()) {
+				json.append(jarSeparator).append(quote(LIB_DIR + jar));
+				jarSeparator = ", ";
+			}
+			json.append("]}");
+			separator = ",\n    ";
+		}
+
+		json.append("\n  ],\n  \"largestEntries\": [");
+		separator = "\n    ";
+		for (Entry entry : largest) {
+			json.append(separator);
+			appendEntry(json, entry);
+			json.append('}');
+			separator = ",\n    ";
+		}
+		json.append("\n  ]\n}\n");
+		return json.toString();
+	}
+
+	private static void appendTotals(StringBuilder json, Totals totals) {
+		json.append("\"files\": ").append(totals.files)
+			.append(", \"copiedFiles\": ").append(totals.copied)
+			.append(", \"size\": ").append(totals.size)
+			.append(", \"compressedSize\": ").append(totals.compressedSize)
+			.append(", \"ratio\": ").append(ratio(totals.compressedSize, totals.size))
+			.append(", \"compressMillis\": ").append(totals.nanos / 1000000);
+	}
+
+	/**
+	 * Append the fields of entry, the object is left open
+	 */
+	private static void appendEntry(StringBuilder json, Entry entry) {
+		json.append("{\"name\": ").append(quote(entry.name))
+			.append(", \"size\": ").append(entry.size)
+			.append(", \"compressedSize\": ").append(entry.compressedSize)
+			.append(", \"ratio\": ").append(ratio(entry.compressedSize, entry.size))
+			.append(", \"compressMillis\": ").append(entry.nanos / 1000000);
+	}
+
+	/**
+	 * @return compressed size relative to size, 1 for empty content
+	 */
+	private static String ratio(long compressedSize, long size) {
+		return String.format(Locale.ENGLISH, "%.3f", size == 0 ? 1.0 : (double) compressedSize / size);
+	}
+
+	static boolean isJar(String name) {
+		return name.toLowerCase(Locale.ENGLISH).endsWith(".jar");
+	}
+
+	/**
+	 * @return name of the jar without version, as written by Maven :
+	 * "commons-lang3" for "commons-lang3-3.4.jar"
+	 */
+	static String getArtifact(String jarName) {
+		int version = getVersionStart(jarName);
+		return jarName.substring(0, version == -1 ? jarName.length() - 4 : version - 1);
+	}
+
+	/**
+	 * @return version in the name of the jar, "" if there is none
+	 */
+	static String getVersion(String jarName) {
+		int version = getVersionStart(jarName);
+		return version == -1 ? "" : jarName.substring(version, jarName.length() - 4);
+	}
+
+	/**
+	 * @return index of the version, the first digit following a '-', -1 if there is none
+	 */
+	private static int getVersionStart(String jarName) {
+		int end = jarName.length() - 4;
+		for (int i = jarName.indexOf('-'); i != -1 && i < end - 1; i = jarName.indexOf('-', i + 1)) {
+			if (Character.isDigit(jarName.charAt(i + 1))) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	static String quote(String value) {
+		StringBuilder quoted = new StringBuilder(value.length() + 2);
+		quoted.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < 0x20) {
+				quoted.append(String.format("\\u%04x", Integer.valueOf(c)));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
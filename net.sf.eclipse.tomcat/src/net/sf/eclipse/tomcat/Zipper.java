@@ -19,29 +19,105 @@
  */
 package net.sf.eclipse.tomcat;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.zip.CRC32;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 
+
+/**
+ * Zip a directory.
+ *
+ * Export is incremental : a manifest of exported files is kept beside the archive,
+ * files whose size and modification time did not change since the previous export
+ * are copied from the previous archive without being compressed again.
+ *
+ * How files are compressed is chosen by a {@link CompressionPolicy}. Files are
+ * compressed concurrently by several threads, and written in the order of the
+ * directory tree by a single one, so the archive does not depend on the number of threads.
+ *
+ * In reproducible mode, entries are sorted by name and their time is fixed, so the
+ * same content always gives the same archive. A SHA-256 digest of the archive is
+ * written beside it, and an archive with the same digest is not replaced.
+ *
+ * What the archive is made of is recorded in a {@link ZipReport}.
+ */
 public class Zipper {
 
-	private static final int BUFFER = 2048;
+	private static final String MANIFEST_SUFFIX = ".manifest";
+	private static final String DIGEST_SUFFIX = ".sha256";
+	private static final String REPORT_SUFFIX = ".report.json";
+	/** time of entries in reproducible mode, before 1980 so written as 1980-01-01 00:00 in any time zone */
+	private static final long REPRODUCIBLE_TIME = 0;
+
+	/** order of entries in reproducible mode : by name, a directory before its content */
+	private static final Comparator<Item> NAME_ORDER = new Comparator<Item>() {
+		public int compare(Item item1, Item item2) {
+			String name1 = item1.name;
+			String name2 = item2.name;
+			int length = Math.min(name1.length(), name2.length());
+			for (int i = 0; i < length; i++) {
+				char c1 = name1.charAt(i);
+				char c2 = name2.charAt(i);
+				if (c1 != c2) {
+					// '/' before any other character, so "a/b" comes before "a.jsp" as "a" does
+					if (c1 == '/') {
+						return -1;
+					} else if (c2 == '/') {
+						return 1;
+					}
+					return c1 - c2;
+				}
+			}
+			return name1.length() - name2.length();
+		}
+	};
+	/** bytes of file content per unit of work reported to the progress monitor */
+	private static final int WORK_UNIT = 64 * 1024;
+	/** minimum delay between two updates of the progress monitor sub task, in milliseconds */
+	private static final long PROGRESS_INTERVAL = 200;
+	/** number of files compressed ahead of the writer, per thread */
+	private static final int FILES_AHEAD_PER_THREAD = 2;
 
-    private static final long EMPTY_CRC = new CRC32 ().getValue ();
     protected String emptyBehavior = "skip";
 
     protected Hashtable addedDirs = new Hashtable();
 	private File outputFile = null;
 	private File directory = null;
-	private ZipOutputStream zos = null;
 	private final String currentDirName;
+	private CompressionPolicy compressionPolicy = new CompressionPolicy();
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private boolean reproducible;
+	private boolean reportWritten;
+
+	private int copiedCount;
+	private int compressedCount;
+	private int storedCount;
+	private long inputSize;
+	private long duration;
+	private String digest;
+	private boolean unchanged;
+	private ZipReport report;
 
 	public Zipper(File outputFile, File directory) throws IOException {
 		this.outputFile = outputFile;
@@ -49,68 +125,520 @@ public class Zipper {
 		currentDirName = directory.getAbsolutePath();
 	}
 
+	public CompressionPolicy getCompressionPolicy() {
+		return compressionPolicy;
+	}
+
+	public void setCompressionPolicy(CompressionPolicy compressionPolicy) {
+		this.compressionPolicy = compressionPolicy;
+	}
+
+	/**
+	 * @param threads number of threads compressing files, 1 to compress
+	 * them in the thread calling {@link #zip()}
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @param reproducible true to sort entries and fix their time
+	 */
+	public void setReproducible(boolean reproducible) {
+		this.reproducible = reproducible;
+	}
+
+	public boolean isReproducible() {
+		return reproducible;
+	}
+
+	/**
+	 * @param reportWritten true to write the {@link ZipReport} of the archive beside it,
+	 * as JSON
+	 */
+	public void setReportWritten(boolean reportWritten) {
+		this.reportWritten = reportWritten;
+	}
+
+	public boolean isReportWritten() {
+		return reportWritten;
+	}
+
 	public void zip() throws IOException {
-	    FileOutputStream fos = new FileOutputStream(outputFile);
-		zos = new ZipOutputStream(fos);
-		zipDir(directory);
-		zos.flush();
-		zos.close();
-		fos.close();
-	}
-
-
-	private void zipDir(File dir) throws IOException {
-		if(!dir.getPath().equals(currentDirName)) {
-			String entryName = dir.getPath().substring(currentDirName.length()+1);
-			entryName = entryName.replace('\\', '/');
-	       	ZipEntry ze = new ZipEntry (entryName + "/");
-	        if (dir.exists()) {
-	            ze.setTime(dir.lastModified());
-	        } else {
-	            ze.setTime(System.currentTimeMillis());
-	        }
-	        ze.setSize (0);
-	        ze.setMethod (ZipEntry.STORED);
-	        // This is faintly ridiculous:
-	        ze.setCrc (EMPTY_CRC);
-            zos.putNextEntry (ze);
-		}
-
-		if (dir.exists() && dir.isDirectory()) {
-			File [] fileList = dir.listFiles();
-
-			for (int i = 0; i < fileList.length; i++) {
-				if (fileList[i].isDirectory() && this.acceptDir(fileList[i])) {
-					zipDir(fileList[i]);
+		zip(new NullProgressMonitor());
+	}
+
+	/**
+	 * Zip, reporting progress to monitor. If monitor is canceled, OperationCanceledException
+	 * is thrown and the existing archive is left as it was.
+	 */
+	public void zip(IProgressMonitor monitor) throws IOException {
+		long start = System.currentTimeMillis();
+		List<Item> items = collect();
+		long totalSize = 0;
+		for (Item item : items) {
+			totalSize += item.size;
+		}
+		monitor.beginTask(outputFile.getName(), (int) Math.min(Integer.MAX_VALUE, items.size() + totalSize / WORK_UNIT));
+		try {
+			zip(items, totalSize, monitor);
+		} finally {
+			monitor.done();
+		}
+		duration = System.currentTimeMillis() - start;
+	}
+
+	private void zip(List<Item> items, long totalSize, IProgressMonitor monitor) throws IOException {
+		File manifestFile = getManifestFile();
+		ZipManifest previous = ZipManifest.read(manifestFile);
+		ZipManifest manifest = new ZipManifest(getOptions());
+		copiedCount = 0;
+		compressedCount = 0;
+		storedCount = 0;
+		inputSize = 0;
+		report = new ZipReport(outputFile.getName());
+
+		ZipArchiveReader previousArchive = openPreviousArchive(previous);
+		File tmpDir = outputFile.getAbsoluteFile().getParentFile();
+		File tmp = File.createTempFile("." + outputFile.getName() + "-", ".tmp", tmpDir);
+		try {
+			if (previousArchive != null) {
+				for (Item item : items) {
+					item.previousEntry = getPreviousEntry(item, previousArchive, previous);
+				}
+			}
+
+			ZipArchiveWriter writer = new ZipArchiveWriter(tmp);
+			try {
+				write(writer, items, previousArchive, manifest, tmpDir, totalSize, monitor);
+				writer.finish();
+			} finally {
+				writer.close();
+			}
+			if (previousArchive != null) {
+				previousArchive.close();
+				previousArchive = null;
+			}
+
+			digest = FileUtil.sha256(tmp);
+			unchanged = outputFile.isFile() && outputFile.length() == tmp.length() && digest.equals(getPreviousDigest());
+			if (!unchanged) {
+				// a manifest or digest older than the archive must never be used
+				manifestFile.delete();
+				getDigestFile().delete();
+				FileUtil.rename(tmp, outputFile);
+			}
+		} finally {
+			if (previousArchive != null) {
+				previousArchive.close();
+			}
+			if (tmp.exists()) {
+				tmp.delete();
+			}
+		}
+		manifest.write(manifestFile);
+		FileUtil.toTextFile(getDigestFile(), digest + "  " + outputFile.getName() + "\n");
+		if (reportWritten) {
+			FileUtil.toTextFile(getReportFile(), report.toJson());
+		}
+	}
+
+	/**
+	 * @return SHA-256 digest of the archive written by the last export, in hexadecimal
+	 */
+	public String getDigest() {
+		return digest;
+	}
+
+	/**
+	 * @return true if the last export gave the same archive as the existing one, which was kept
+	 */
+	public boolean isUnchanged() {
+		return unchanged;
+	}
+
+	/**
+	 * @return what the archive written by the last export is made of
+	 */
+	public ZipReport getReport() {
+		return report;
+	}
+
+	/**
+	 * @return number of files copied from the previous archive by the last export
+	 */
+	public int getCopiedCount() {
+		return copiedCount;
+	}
+
+	/**
+	 * @return number of files compressed by the last export, including stored ones
+	 */
+	public int getCompressedCount() {
+		return compressedCount;
+	}
+
+	/**
+	 * @return number of files stored without compression by the last export
+	 */
+	public int getStoredCount() {
+		return storedCount;
+	}
+
+	/**
+	 * @return total size of the files zipped by the last export
+	 */
+	public long getInputSize() {
+		return inputSize;
+	}
+
+	/**
+	 * @return duration of the last export in milliseconds
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	/**
+	 * @return a one line summary of the last export, with its throughput
+	 */
+	public String getSummary() {
+		double megaBytes = inputSize / (1024.0 * 1024.0);
+		double seconds = Math.max(duration, 1) / 1000.0;
+		long archiveSize = outputFile.length();
+		return String.format(Locale.ENGLISH, "%s : %d files (%d compressed, %d stored, %d unchanged), %.1f MB in %d ms with %d threads, %.1f MB/s, archive %.1f MB (%.0f%% of content)",
+				outputFile.getName(), copiedCount + compressedCount, compressedCount - storedCount, storedCount, copiedCount,
+				megaBytes, duration, threads, megaBytes / seconds, archiveSize / (1024.0 * 1024.0),
+				inputSize == 0 ? 100.0 : archiveSize * 100.0 / inputSize)
+				+ (unchanged ? ", unchanged archive kept" : "");
+	}
+
+	/**
+	 * Collect accepted directories and files, a directory comes before its content.
+	 * Size and time are read before the content, so a file modified while zipped
+	 * is compressed again next time.
+	 */
+	private List<Item> collect() throws IOException {
+		final List<Item> items = new ArrayList<Item>();
+		FileTreeWalker.getDefault().walk(directory, new FileTreeWalker.Visitor() {
+			public boolean visitDirectory(File dir, long time) {
+				if (!acceptDir(dir)) {
+					return false;
 				}
-				if (fileList[i].isFile() && this.acceptFile(fileList[i])) {
-					zipFile(fileList[i]);
+				items.add(newItem(dir, true, 0, time));
+				return true;
+			}
+
+			public void visitFile(File file, long size, long time) {
+				if (acceptFile(file)
+						&& !file.equals(outputFile)
+						&& !file.equals(getManifestFile())
+						&& !file.equals(getDigestFile())
+						&& !file.equals(getReportFile())) {
+					items.add(newItem(file, false, size, time));
 				}
 			}
+		});
+		if (reproducible) {
+			Collections.sort(items, NAME_ORDER);
 		}
+		return items;
+	}
 
+	/**
+	 * A directory or file to add to the archive
+	 */
+	private static class Item {
+		File file;
+		String name;
+		boolean directory;
+		long size;
+		long time;
+		/** entry of the previous archive to copy, null if file must be compressed */
+		ZipArchiveEntry previousEntry;
+		/** file compressed by another thread, null if it is compressed by the writer */
+		Future<ZipCompressedData> compressed;
 	}
 
+	/**
+	 * Data compressed by other threads and not written yet. Once released, data
+	 * compressed by a thread still running is deleted as soon as it is done.
+	 */
+	private static class PendingData {
+		private final Set<ZipCompressedData> pending = new HashSet<ZipCompressedData>();
+		private boolean released;
+
+		/**
+		 * @return data, null if it was deleted because this is released
+		 */
+		synchronized ZipCompressedData add(ZipCompressedData data) {
+			if (data != null) {
+				if (released) {
+					data.dispose();
+					return null;
+				}
+				pending.add(data);
+			}
+			return data;
+		}
+
+		/**
+		 * Data taken by the writer, which disposes it
+		 */
+		synchronized void remove(ZipCompressedData data) {
+			pending.remove(data);
+		}
+
+		synchronized void release() {
+			released = true;
+			for (ZipCompressedData data : pending) {
+				data.dispose();
+			}
+			pending.clear();
+		}
+	}
 
-	private void zipFile(File file) throws IOException {
-		if(!file.equals(this.outputFile)) {
-			BufferedInputStream bis = new BufferedInputStream(new FileInputStream(file),BUFFER);
+	private Item newItem(File file, boolean directory, long size, long time) {
+		Item item = new Item();
+		item.file = file;
+		item.name = getEntryName(file);
+		item.directory = directory;
+		item.size = size;
+		item.time = time;
+		return item;
+	}
+
+	/**
+	 * @return entry of the previous archive to copy for item, null if item changed
+	 */
+	private ZipArchiveEntry getPreviousEntry(Item item, ZipArchiveReader previousArchive, ZipManifest previous) {
+		if (item.directory || !previous.isUnchanged(item.name, item.size, item.time)) {
+			return null;
+		}
+		ZipArchiveEntry previousEntry = previousArchive.getEntry(item.name);
+		if (previousEntry != null
+				&& previousEntry.getSize() == item.size
+				&& previousEntry.getCrc() == previous.getCrc(item.name)) {
+			return previousEntry;
+		}
+		return null;
+	}
+
+	/**
+	 * Write items in order, while the next files are compressed by other threads
+	 */
+	private void write(ZipArchiveWriter writer, List<Item> items, ZipArchiveReader previousArchive,
+			ZipManifest manifest, File tmpDir, long totalSize, IProgressMonitor monitor) throws IOException {
+		long lastProgress = 0;
+		ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+		Queue<ZipEntryCompressor> compressors = new ConcurrentLinkedQueue<ZipEntryCompressor>();
+		PendingData pending = new PendingData();
+		int submitted = 0;
+		try {
+			for (int i = 0; i < items.size(); i++) {
+				if (executor != null) {
+					submitted = submit(executor, items, submitted, i + threads * FILES_AHEAD_PER_THREAD, compressors, pending, tmpDir);
+				}
+
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				long now = System.currentTimeMillis();
+				if (now - lastProgress >= PROGRESS_INTERVAL) {
+					lastProgress = now;
+					monitor.subTask(String.format(Locale.ENGLISH, "%d / %d files, %.1f / %.1f MB",
+							i, items.size(), inputSize / (1024.0 * 1024.0), totalSize / (1024.0 * 1024.0)));
+				}
+
+				Item item = items.get(i);
+				monitor.worked(1 + (int) (item.size / WORK_UNIT));
+				if (item.directory) {
+					writer.putDirectory(item.name + "/", getEntryTime(item));
+					continue;
+				}
+
+				ZipArchiveEntry entry;
+				long nanos = 0;
+				if (item.previousEntry != null) {
+					entry = writer.copy(previousArchive, item.previousEntry);
+					copiedCount++;
+				} else {
+					ZipCompressedData data = item.compressed == null ? null : getCompressed(item);
+					if (data == null) {
+						long start = System.nanoTime();
+						entry = writer.putFile(item.name, item.file, getEntryTime(item), compressionPolicy);
+						nanos = System.nanoTime() - start;
+					} else {
+						pending.remove(data);
+						try {
+							entry = writer.putCompressed(item.name, getEntryTime(item), data);
+							nanos = data.nanos;
+						} finally {
+							data.dispose();
+						}
+					}
+					compressedCount++;
+					if (entry.getMethod() == ZipEntry.STORED) {
+						storedCount++;
+					}
+				}
+				inputSize += entry.getSize();
+				report.add(item.name, entry.getSize(), entry.getCompressedSize(), nanos, item.previousEntry != null);
+				manifest.put(item.name, entry.getCrc(), item.size, item.time);
+			}
+		} finally {
+			if (executor != null) {
+				shutdown(executor, pending);
+			}
+			for (ZipEntryCompressor compressor : compressors) {
+				compressor.end();
+			}
+		}
+	}
 
-			String entryName = file.getPath().substring(currentDirName.length()+1);
-			entryName = entryName.replace('\\', '/');
-			ZipEntry fileEntry = new ZipEntry(entryName);
-			zos.putNextEntry(fileEntry);
+	/**
+	 * Submit the compression of files from items[from] to items[to - 1]
+	 * @return index of the first item not submitted
+	 */
+	private int submit(ExecutorService executor, List<Item> items, int from, int to,
+			final Queue<ZipEntryCompressor> compressors, final PendingData pending, final File tmpDir) {
+		int i = from;
+		for (; i < to && i < items.size(); i++) {
+			final Item item = items.get(i);
+			if (item.directory || item.previousEntry != null) {
+				continue;
+			}
+			item.compressed = executor.submit(new Callable<ZipCompressedData>() {
+				public ZipCompressedData call() throws IOException {
+					ZipEntryCompressor compressor = compressors.poll();
+					if (compressor == null) {
+						compressor = new ZipEntryCompressor();
+					}
+					try {
+						return pending.add(ZipCompressedData.compress(item.name, item.file, compressionPolicy, compressor, tmpDir));
+					} finally {
+						compressors.add(compressor);
+					}
+				}
+			});
+		}
+		return i;
+	}
 
-			byte[] data = new byte[BUFFER];
-			int byteCount;
-			while ((byteCount = bis.read(data, 0, BUFFER)) != -1) {
-				zos.write(data, 0, byteCount);
+	private ZipCompressedData getCompressed(Item item) throws IOException {
+		try {
+			return item.compressed.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while compressing " + item.name);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
 			}
+			throw new IOException("Compressing " + item.name + " failed: " + cause);
+		}
+	}
+
+	/**
+	 * Stop compressing threads, and release what they compressed for nothing
+	 * if the export failed. Pending files are still compressed rather than
+	 * cancelled, there are only a few; what is compressed after the wait is
+	 * deleted by its thread, so no temporary file is left behind.
+	 */
+	private void shutdown(ExecutorService executor, PendingData pending) {
+		executor.shutdown();
+		try {
+			// TimeUnit.MINUTES is not in Java 5
+			executor.awaitTermination(60, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pending.release();
+		}
+	}
 
-			bis.close();
+	/**
+	 * @return previous archive if its entries can be copied, null otherwise
+	 */
+	private ZipArchiveReader openPreviousArchive(ZipManifest previous) {
+		// entries written with other options would not be compressed as requested
+		if (previous.size() == 0 || !previous.getOptions().equals(getOptions()) || !outputFile.isFile()
+				|| !isUpToDate(getManifestFile())) {
+			return null;
+		}
+		try {
+			return new ZipArchiveReader(outputFile);
+		} catch (IOException e) {
+			// not written by this class, or damaged : everything is compressed again
+			return null;
 		}
 	}
 
+	/**
+	 * @return options recorded in the manifest, entries of an archive written
+	 * with other options are not copied
+	 */
+	private String getOptions() {
+		return compressionPolicy.getOptions() + (reproducible ? " reproducible" : "");
+	}
+
+	private long getEntryTime(Item item) {
+		return reproducible ? REPRODUCIBLE_TIME : item.time;
+	}
+
+	/**
+	 * @return digest of the existing archive, as recorded beside it or computed
+	 */
+	private String getPreviousDigest() throws IOException {
+		File digestFile = getDigestFile();
+		if (digestFile.isFile() && isUpToDate(digestFile)) {
+			String recorded = FileUtil.readTextFile(digestFile);
+			int space = recorded.indexOf(' ');
+			return space == -1 ? recorded.trim() : recorded.substring(0, space);
+		}
+		return FileUtil.sha256(outputFile);
+	}
+
+	/**
+	 * @return true if file, written beside the archive, is not older than the archive :
+	 * an archive replaced by something else than this class does not match it any more
+	 */
+	private boolean isUpToDate(File file) {
+		return file.lastModified() >= outputFile.lastModified();
+	}
+
+	private File getManifestFile() {
+		return new File(outputFile.getPath() + MANIFEST_SUFFIX);
+	}
+
+	private File getDigestFile() {
+		return new File(outputFile.getPath() + DIGEST_SUFFIX);
+	}
+
+	/**
+	 * @return file where the report is written, see {@link #setReportWritten(boolean)}
+	 */
+	public File getReportFile() {
+		return new File(outputFile.getPath() + REPORT_SUFFIX);
+	}
+
+	/**
+	 * @return path of file relative to the zipped directory, separated by '/'
+	 */
+	protected String getEntryName(File file) {
+		String entryName = file.getPath().substring(currentDirName.length()+1);
+		return entryName.replace('\\', '/');
+	}
+
 	protected boolean acceptDir(File dir) {
 		return true;
 	}
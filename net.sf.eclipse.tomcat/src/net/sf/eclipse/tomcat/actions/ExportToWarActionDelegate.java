@@ -19,6 +19,7 @@
  */
 package net.sf.eclipse.tomcat.actions;
 
+import net.sf.eclipse.tomcat.ExportToWarJob;
 import net.sf.eclipse.tomcat.TomcatLauncherPlugin;
 import net.sf.eclipse.tomcat.TomcatProject;
 
@@ -27,11 +28,19 @@ public class ExportToWarActionDelegate extends TomcatProjectAbstractActionDelega
 	@Override
 	public void doActionOn(TomcatProject prj) throws Exception {
 		if(!prj.getWarLocation().equals("")) {
-			prj.exportToWar();
+			new ExportToWarJob(prj).schedule();
 		} else {
 			throw new TomcatActionException(TomcatLauncherPlugin.getResourceString("msg.action.exportWAR.failed"));	
 		}
 	}			
 
+	/**
+	 * The job tells when the export is done
+	 */
+	@Override
+	public boolean showMessageBox() {
+		return false;
+	}
+
 }
 
@@ -19,11 +19,13 @@
  */
 package net.sf.eclipse.tomcat.actions;
 
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.action.IAction;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.IWorkbenchWindowActionDelegate;
 
+import net.sf.eclipse.tomcat.RestartJob;
 import net.sf.eclipse.tomcat.TomcatLauncherPlugin;
 
 public class RestartActionDelegate implements IWorkbenchWindowActionDelegate {
@@ -39,12 +41,9 @@ public class RestartActionDelegate implements IWorkbenchWindowActionDelegate {
 	public void run(IAction action) {
 		if(TomcatLauncherPlugin.checkTomcatSettingsAndWarn()) {
 			//TomcatLauncherPlugin.log(TomcatLauncherPlugin.getResourceString("msg.restart"));
-			try {
-				TomcatLauncherPlugin.getDefault().getTomcatBootstrap().restart();
-			} catch (Exception ex) {
-				String msg = TomcatLauncherPlugin.getResourceString("msg.restart.failed");
-				TomcatLauncherPlugin.log(msg + "/n");
-				TomcatLauncherPlugin.log(ex);
+			// a restart already running will start Tomcat again
+			if (Job.getJobManager().find(RestartJob.class).length == 0) {
+				new RestartJob().schedule();
 			}
 		}
 	}